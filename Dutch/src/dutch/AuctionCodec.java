@@ -0,0 +1,194 @@
+package dutch;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The binary content of the messages of the auction, used by both the auctioneer and the bidders.
+ * It is sent as the byte sequence content of the ACL message:
+ * one byte for the version, one byte for the type of the message and then the fields of the type.
+ * A name is written as its length in bytes (2 bytes) followed by its UTF-8 bytes, so it may contain commas,
+ * and a price is written as 4 bytes.
+ * <pre>
+ *   BID       : version, type, price
+ *   ORDER     : version, type, name, price
+ *   ITEM      : version, type, name, initial price
+ *   DUTCH_CFP : version, type, name, start price, drop, tick (ms), reserve price
+ * </pre>
+ */
+final class AuctionCodec {
+
+    // The version of the format
+    public static final byte VERSION = 1;
+
+    // The types of the messages
+    public static final byte BID = 2;
+    public static final byte ORDER = 3;
+    public static final byte ITEM = 7;
+    public static final byte DUTCH_CFP = 11;
+
+    // The longest name, in UTF-8 bytes, that fits in the length field
+    public static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    /**
+    *   The decoded content of a message. It can be used again for every message.
+    */
+    static final class Content {
+        public byte type;
+        public String itemName;
+        public int initialPrice;
+        public int price;
+
+        // The drop of the price of a Dutch clock at every tick
+        public int increment;
+
+        // The length (ms) of a tick of a Dutch clock and the price where it stops
+        public int tick;
+        public int reserve;
+    }
+
+    private AuctionCodec() {
+    }
+
+    /**
+    *   It encodes the offer of a Dutch auction: the price starts high and drops every tick down to the reserve price,
+    *   until a bidder accepts it or a tick at the reserve price passes.
+    */
+    public static byte[] encodeDutchCfp(String itemName, int startPrice, int drop, int tick, int reserve) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4 + 4 + 4];
+        int off = header(data, DUTCH_CFP);
+        off = putName(data, off, name);
+        off = putInt(data, off, startPrice);
+        off = putInt(data, off, drop);
+        off = putInt(data, off, tick);
+        putInt(data, off, reserve);
+        return data;
+    }
+
+    /**
+    *   It encodes a bid.
+    */
+    public static byte[] encodeBid(int price) {
+        byte[] data = new byte[2 + 4];
+        putInt(data, header(data, BID), price);
+        return data;
+    }
+
+    /**
+    *   It encodes the order that is sent to the winner of an item.
+    */
+    public static byte[] encodeOrder(String itemName, int price) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ORDER);
+        off = putName(data, off, name);
+        putInt(data, off, price);
+        return data;
+    }
+
+    /**
+    *   It encodes an item for sale, that is sent to the auctioneer that sells it.
+    */
+    public static byte[] encodeItem(String itemName, int initialPrice) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ITEM);
+        off = putName(data, off, name);
+        putInt(data, off, initialPrice);
+        return data;
+    }
+
+    /**
+    *   It decodes the content of a message into the given content and returns it.
+    *   The fields that the type does not have are left as they were.
+    *   @throws IllegalArgumentException if the content is missing, truncated or of another version
+    */
+    public static Content decode(byte[] data, Content into) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("The content is empty!");
+        }
+        if (data[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown version " + data[0] + " of the content!");
+        }
+        try {
+            into.type = data[1];
+            int off = 2;
+            switch (into.type) {
+                case DUTCH_CFP:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    into.increment = getInt(data, off + 4);
+                    into.tick = getInt(data, off + 8);
+                    into.reserve = getInt(data, off + 12);
+                    break;
+                case BID:
+                    into.price = getInt(data, off);
+                    break;
+                case ORDER:
+                    off = readName(data, off, into);
+                    into.price = getInt(data, off);
+                    break;
+                case ITEM:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown type " + into.type + " of the content!");
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("The content is truncated!");
+        }
+        return into;
+    }
+
+    private static byte[] nameBytes(String itemName) {
+        byte[] name = itemName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("The name of the item is too long!");
+        }
+        return name;
+    }
+
+    private static int header(byte[] data, byte type) {
+        data[0] = VERSION;
+        data[1] = type;
+        return 2;
+    }
+
+    private static int putName(byte[] data, int off, byte[] name) {
+        data[off] = (byte)(name.length >>> 8);
+        data[off + 1] = (byte)name.length;
+        System.arraycopy(name, 0, data, off + 2, name.length);
+        return off + 2 + name.length;
+    }
+
+    private static int readName(byte[] data, int off, Content into) {
+        int length = ((data[off] & 0xFF) << 8) | (data[off + 1] & 0xFF);
+        if (off + 2 + length > data.length) {
+            throw new ArrayIndexOutOfBoundsException(off + 2 + length);
+        }
+        into.itemName = new String(data, off + 2, length, StandardCharsets.UTF_8);
+        return off + 2 + length;
+    }
+
+    private static int putInt(byte[] data, int off, int value) {
+        data[off] = (byte)(value >>> 24);
+        data[off + 1] = (byte)(value >>> 16);
+        data[off + 2] = (byte)(value >>> 8);
+        data[off + 3] = (byte)value;
+        return off + 4;
+    }
+
+    private static int getInt(byte[] data, int off) {
+        return ((data[off] & 0xFF) << 24) | ((data[off + 1] & 0xFF) << 16)
+                | ((data[off + 2] & 0xFF) << 8) | (data[off + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,439 @@
+package dutch;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+
+/**
+ * This class creates a JADE agent who performs an auctioneer of a dutch auction.
+ * The auctioneer sends the offer of a lot to all the bidders once: the price starts at the initial price of the item
+ * and drops every tick down to the reserve price, until a bidder accepts it or a tick at the reserve price passes.
+ * The first bidder who accepts a price that the clock has reached wins the item for that price,
+ * and the other bidders are told in one broadcast that the lot is closed, so they drop the accepts they wait to send.
+ * A lot costs one offer, one winning message and one close notice. The price steps of all the lots run on one clock.
+ */
+public class Auctioneer extends Agent {
+
+    // The protocol of the messages of the lots
+    public static final String PROTOCOL = "dutch-auction";
+
+    // The catalogue of items for sale -> a queue of items that can also find the price of an item by its name
+    private Catalogue catalogue;
+
+    // The GUI through which the user can add items in the catalogue
+    private AuctioneerGUI myGUI;
+
+    // The lots that are auctioned right now -> it maps the conversation id of a lot to the lot
+    public HashMap<String,Lot> openLots;
+
+    // The number of lots that can be auctioned at the same time (argument "lots")
+    public int maxOpenLots = 1;
+
+    // The length of a tick of the clock (argument "tick", ms)
+    public int tick = 100;
+
+    // The drop of the price at every tick, in percent of the initial price (argument "drop")
+    public int dropPercent = 5;
+
+    // The reserve price, in percent of the initial price (argument "reserve")
+    public int reservePercent = 50;
+
+    // The bidders that are registered in the yellow pages, updated by the DF
+    public BidderDirectory directory;
+
+    // The timers that run the price steps of all the lots, on one clock (argument "timer-tick", ms)
+    public TimerWheel timers;
+
+    // The counter of the lots that have been started, used for unique conversation ids
+    private int lotsStarted = 0;
+
+    /**
+    *    Set-up the auctioneer and the auction system.
+    */
+    @Override
+    protected void setup() {
+        openLots = new HashMap<String,Lot>();
+
+        // Read the arguments of the agent
+        maxOpenLots = Math.max(1, Integer.parseInt(getArgument("lots", String.valueOf(maxOpenLots))));
+        tick = Math.max(1, Integer.parseInt(getArgument("tick", String.valueOf(tick))));
+        dropPercent = Math.max(1, Integer.parseInt(getArgument("drop", String.valueOf(dropPercent))));
+        reservePercent = Math.max(0, Integer.parseInt(getArgument("reserve", String.valueOf(reservePercent))));
+        if (getArgument("log", null) != null) {
+            AuctionLog.setLevel(AuctionLog.parseLevel(getArgument("log", null)));
+        }
+
+        // show a starting message
+        AuctionLog.info("The auctions starts!  Auctioneer {} is ready.", getAID().getName());
+        AuctionLog.info("The price drops by {}% every {} ms, down to {}% of the initial price.", dropPercent, tick, reservePercent);
+
+        // Create the catalogue
+        catalogue = new Catalogue();
+
+        // Create and show the GUI window, unless the auctioneer runs without one (argument "headless")
+        if (getArgument("headless", null) == null) {
+            myGUI = new AuctioneerGUI(this);
+            myGUI.showGui();
+        }
+
+        // Receive the items that are sent by other agents, or by the program that started the agent
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ReceiveItems(this));
+
+        // Subscribe to the yellow pages, to keep the list of bidders up to date
+        directory = new BidderDirectory(this, PROTOCOL);
+        addBehaviour(directory);
+
+        // One clock for the price steps of all the lots
+        timers = new TimerWheel(this, Long.parseLong(getArgument("timer-tick", "10")));
+        addBehaviour(timers);
+
+        // Receive the prices that the bidders accept
+        addBehaviour(new ReceiveAccepts(this));
+
+        // Add a Behaviour that schedules a request to bidders
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    *   An argument with no value gives "true".
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *    Agent clean-up operations.
+    */
+    protected void takeDown() {
+        // Stop the notifications of the yellow pages
+        directory.cancel(getDefaultDF(), true);
+
+        // Close the GUI
+        if (myGUI != null) {
+            myGUI.dispose();
+        }
+
+        // Show a dismissal message
+        AuctionLog.info("Auctioneer {} terminating.", getAID().getName());
+    }
+
+    /**
+    *   This is invoked by the GUI when the user adds a new item for sale.
+    */
+    public void updateCatalogue(final String title, final int price) {
+        addBehaviour(
+            new OneShotBehaviour() {
+                public void action() {
+                    catalogue.put(title, price);
+                    AuctionLog.info("{} is inserted into catalogue. Initial Price = {}.", title, price);
+                }
+            }
+        );
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *    It returns true if the catalogue is empty.
+    */
+    public boolean isCatalogueEmpty() {
+        return catalogue.isEmpty();
+    }
+
+    /**
+    *    It takes the next item that is not auctioned yet out of the queue and returns its name, or null if there is none.
+    */
+    public String getNextItemName() {
+        Catalogue.Item item = catalogue.poll();
+        return item != null ? item.name : null;
+    }
+
+    /**
+    *   It opens a new lot for an item of the catalogue: it sends the offer to all the bidders and starts the clock of the lot.
+    */
+    public Lot openLot(final String title) {
+        lotsStarted++;
+        int price = catalogue.price(title);
+        // The percentages are taken in long, so that a high price does not overflow, and kept within the price
+        int reserve = (int) Math.min(price, (long) price * reservePercent / 100);
+        int drop = (int) Math.max(1, Math.min(price, (long) price * dropPercent / 100));
+        final Lot lot = new Lot(title, price, reserve, drop, tick, "dutch-bid-" + lotsStarted);
+        lot.bidders = directory.getBidders();
+
+        // One offer for all the bidders, they follow the clock on their own
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        for (int i = 0; i < lot.bidders.length; ++i) {
+            cfp.addReceiver(lot.bidders[i]);
+        }
+        cfp.setByteSequenceContent(AuctionCodec.encodeDutchCfp(title, lot.startPrice, lot.drop, lot.tick, lot.reservePrice));
+        cfp.setProtocol(PROTOCOL);
+        cfp.setConversationId(lot.conversationId);
+        send(cfp);
+        lot.startedAt = System.currentTimeMillis();
+        openLots.put(lot.conversationId, lot);
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("Offer of {} sent to {} bidders, starting at {}.", title, lot.bidders.length, lot.startPrice);
+        }
+
+        // The price steps of the lot, on the clock of all the lots
+        timers.scheduleAt(lot.nextTickAt(), new Runnable() {
+            public void run() {
+                if (lot.closed) {
+                    return;
+                }
+                if (!lot.step()) {
+                    closeUnsold(lot);
+                }
+                else if (lot.earlyBidder != null && lot.earlyPrice >= lot.price) {
+                    // The clock has reached a price that a bidder accepted before
+                    sell(lot, lot.earlyBidder, lot.earlyPrice);
+                }
+                else {
+                    if (AuctionLog.isDebugEnabled()) {
+                        AuctionLog.debug("The price of {} drops to {}.", lot.itemName, lot.price);
+                    }
+                    timers.scheduleAt(lot.nextTickAt(), this);
+                }
+            }
+        });
+        return lot;
+    }
+
+    /**
+    *   It sells the item of a lot to the bidder who accepted a price, and starts the next items if any.
+    */
+    public void sell(Lot lot, AID winner, int price) {
+        lot.closed = true;
+        openLots.remove(lot.conversationId);
+        catalogue.remove(lot.itemName);
+
+        ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+        order.addReceiver(winner);
+        order.setByteSequenceContent(AuctionCodec.encodeOrder(lot.itemName, price));
+        order.setProtocol(PROTOCOL);
+        order.setConversationId(lot.conversationId);
+        send(order);
+        AuctionLog.info("{} sold to agent {} for {} !", lot.itemName, winner.getName(), price);
+
+        sendClosed(lot, winner);
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   It closes a lot whose price has spent a tick at the reserve price, and starts the next items if any.
+    */
+    public void closeUnsold(Lot lot) {
+        lot.closed = true;
+        openLots.remove(lot.conversationId);
+        catalogue.remove(lot.itemName);
+        AuctionLog.info("{} cannot be sold to any agent !", lot.itemName);
+
+        sendClosed(lot, null);
+        addBehaviour(new ActionBid(this));
+    }
+
+    // Tell all the bidders of a lot but the winner, in one message, that the lot is closed
+    private void sendClosed(Lot lot, AID winner) {
+        ACLMessage closed = new ACLMessage(ACLMessage.INFORM);
+        for (int i = 0; i < lot.bidders.length; ++i) {
+            if (!lot.bidders[i].equals(winner)) {
+                closed.addReceiver(lot.bidders[i]);
+            }
+        }
+        if (!closed.getAllReceiver().hasNext()) {
+            return;
+        }
+        closed.setContent("closed");
+        closed.setProtocol(PROTOCOL);
+        closed.setConversationId(lot.conversationId);
+        send(closed);
+    }
+}
+
+/**
+ *  It receives the items that other agents send for sale, and adds them to the catalogue.
+ *  An item comes as a REQUEST of the "catalogue" conversation, or as a Catalogue.Item object (O2A)
+ *  from the program that started the auctioneer.
+*/
+class ReceiveItems extends CyclicBehaviour {
+
+    private Auctioneer myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                                                     MessageTemplate.MatchConversationId("catalogue"));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveItems(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        boolean received = false;
+
+        Object o;
+        while ((o = myAgent.getO2AObject()) != null) {
+            if (o instanceof Catalogue.Item) {
+                Catalogue.Item item = (Catalogue.Item) o;
+                myAgent.updateCatalogue(item.name, item.price);
+            }
+            received = true;
+        }
+
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            try {
+                AuctionCodec.Content item = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                if (item.type == AuctionCodec.ITEM) {
+                    myAgent.updateCatalogue(item.itemName, item.initialPrice);
+                }
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The item of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            }
+            received = true;
+        }
+
+        if (!received) {
+            block();
+        }
+    }
+}
+
+/**
+ *  Add a Behaviour that schedules a request to bidders.
+ *  It opens lots until the maximum number of lots run at the same time, once there is a bidder.
+*/
+class ActionBid extends Behaviour {
+
+    private Auctioneer myAgent;
+
+    private boolean isDone = false;
+
+    public ActionBid(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    @Override
+    public void action() {
+
+        // If there is any item to sell
+        if (!myAgent.isCatalogueEmpty()) {
+
+            if (myAgent.directory.isEmpty()) {
+                // Wait until a bidder registers
+                AuctionLog.debug("Waiting for bidders...");
+                myAgent.directory.waitForBidders(this);
+                block();
+                return;
+            }
+
+            String currentItemName;
+            while (myAgent.openLots.size() < myAgent.maxOpenLots
+                    && (currentItemName = myAgent.getNextItemName()) != null) {
+
+                AuctionLog.info("Starting auction for item {}.", currentItemName);
+                myAgent.openLot(currentItemName);
+            }
+        }
+        else if (myAgent.openLots.isEmpty()) {
+            AuctionLog.info("Add an item before we can commence auctions.");
+        }
+        isDone = true;
+    }
+
+    @Override
+    public boolean done() {
+        return isDone;
+    }
+}
+
+/**
+*   Receive the prices that the bidders accept.
+*   The first bidder who accepts a price that the clock has reached wins the lot for that price.
+*   A price that the clock has not reached yet waits for it, and a lot that is closed rejects the late bidders.
+*/
+class ReceiveAccepts extends CyclicBehaviour {
+
+    private Auctioneer myAgent;
+
+    private MessageTemplate mt = MessageTemplate.MatchProtocol(Auctioneer.PROTOCOL);
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveAccepts(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg == null) {
+            block();
+            return;
+        }
+
+        if (msg.getPerformative() == ACLMessage.INFORM) {
+            AuctionLog.debug("{} has paid for its item.", msg.getSender().getLocalName());
+            return;
+        }
+        if (msg.getPerformative() != ACLMessage.PROPOSE) {
+            return;
+        }
+
+        int price;
+        try {
+            price = AuctionCodec.decode(msg.getByteSequenceContent(), content).price;
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The bid of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+
+        Lot lot = myAgent.openLots.get(msg.getConversationId());
+        if (lot == null || price < lot.reservePrice) {
+            // Another bidder was first, or the lot is over
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.REJECT_PROPOSAL);
+            reply.setContent("closed");
+            myAgent.send(reply);
+            AuctionLog.debug("{} accepted too late.", msg.getSender().getLocalName());
+        }
+        else if (price >= lot.price) {
+            // The clock has reached this price, so the clock stops here
+            myAgent.sell(lot, msg.getSender(), price);
+        }
+        else {
+            lot.acceptEarly(msg.getSender(), price);
+        }
+    }
+}
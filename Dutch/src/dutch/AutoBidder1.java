@@ -0,0 +1,225 @@
+package dutch;
+
+import jade.core.Agent;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who performs a bidder of a dutch auction.
+ * For every offer it picks the price it would pay, follows the clock of the lot on its own clock
+ * and accepts when the price reaches it. It will terminate after the budget runs out.
+ */
+public class AutoBidder1 extends Agent {
+
+    // The budget left for this bidder
+    public int budget;
+
+    // The timers that run the accepts of all the lots
+    public TimerWheel timers;
+
+    // The accepts that wait for the clock -> it maps the conversation id of a lot to the timer of its accept
+    public HashMap<String,TimerWheel.Timer> accepts = new HashMap<>();
+
+    // Random number generator
+    static Random rn = new Random();
+
+    // Agent initializations
+    protected void setup() {
+
+        // Setup budget randomly between [1000,2000]
+        budget = rn.nextInt(1000) + 1000;
+        AuctionLog.info("Bidder {} is ready with budget {}.", getAID().getName(), budget);
+
+        // Register as bidder to the yellow pages
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(Auctioneer.PROTOCOL);
+        sd.setName("dutch-Auction");
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        timers = new TimerWheel(this, 10);
+        addBehaviour(timers);
+
+        // Add the behaviour for receiving the offers of the Auctioneer
+        addBehaviour(new ReceiveOffer(this));
+
+        // Add the behaviour for receiving the item when it wins, the rejection when it was late, or the close of a lot
+        addBehaviour(new ReceiveResult(this));
+    }
+
+    /**
+    *   It returns the price that the bidder pays for an item, or -1 if it does not join the lot.
+    *   It joins 1 out of 2 times, with a random price between the reserve price and the start price that it can afford.
+    */
+    protected int choosePrice(int startPrice, int reservePrice) {
+        int top = Math.min(startPrice, budget);
+        if (top < reservePrice || rn.nextBoolean()) {
+            return -1;
+        }
+        return reservePrice + rn.nextInt(top - reservePrice + 1);
+    }
+
+    // Agent clean-up operations
+    protected void takeDown() {
+        // Deregister from the yellow pages
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        // Show a dismissal message
+        AuctionLog.info("Bidder {} terminating.", getAID().getName());
+    }
+}
+
+/**
+ * This processes the offers, deciding the price to accept and when the clock reaches it.
+ */
+class ReceiveOffer extends CyclicBehaviour {
+
+    private AutoBidder1 myAgent;
+
+    private MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.CFP);
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveOffer(AutoBidder1 agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        // Check budget -> If it is 0, terminate
+        if (myAgent.budget <= 0) {
+            AuctionLog.info("No budget left!");
+            myAgent.doDelete();
+            return;
+        }
+
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg == null) {
+            block();
+            return;
+        }
+
+        AuctionCodec.Content offer;
+        try {
+            offer = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The offer of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+        if (offer.type != AuctionCodec.DUTCH_CFP) {
+            return;
+        }
+
+        final String itemName = offer.itemName;
+        int value = myAgent.choosePrice(offer.initialPrice, offer.reserve);
+        if (value < 0) {
+            AuctionLog.debug("{} is not joining the auction of {}.", myAgent.getLocalName(), itemName);
+            return;
+        }
+
+        // The first tick where the price is not above the value, and its price, which the clock stops at the reserve
+        int ticks = (int) (((long) offer.initialPrice - value + offer.increment - 1) / offer.increment);
+        final int price = (int) Math.max(offer.reserve, offer.initialPrice - (long) ticks * offer.increment);
+        final ACLMessage reply = msg.createReply();
+        final String conversationId = msg.getConversationId();
+        TimerWheel.Timer accept = myAgent.timers.schedule((long) ticks * offer.tick, new Runnable() {
+            public void run() {
+                myAgent.accepts.remove(conversationId);
+                if (myAgent.budget >= price) {
+                    reply.setPerformative(ACLMessage.PROPOSE);
+                    reply.setByteSequenceContent(AuctionCodec.encodeBid(price));
+                    myAgent.send(reply);
+                    if (AuctionLog.isDebugEnabled()) {
+                        AuctionLog.debug("{} accepts {} for {}.", myAgent.getLocalName(), itemName, price);
+                    }
+                }
+            }
+        });
+        myAgent.accepts.put(conversationId, accept);
+    }
+}
+
+/**
+ * Get the item as the auction winner, or learn that another bidder accepted first.
+ * When a lot is closed before the clock reaches the price of the bidder, its accept is not sent.
+ */
+class ReceiveResult extends CyclicBehaviour {
+
+    private AutoBidder1 myAgent;
+
+    private MessageTemplate mt = MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
+                                                    MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.REJECT_PROPOSAL),
+                                                                       MessageTemplate.MatchPerformative(ACLMessage.INFORM)));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveResult(AutoBidder1 agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg == null) {
+            block();
+            return;
+        }
+
+        if (msg.getPerformative() == ACLMessage.INFORM) {
+            // The lot is closed, so the accept that waits for the clock is dropped
+            myAgent.timers.cancel(myAgent.accepts.remove(msg.getConversationId()));
+            return;
+        }
+        if (msg.getPerformative() == ACLMessage.REJECT_PROPOSAL) {
+            AuctionLog.debug("Another bidder accepted before {}.", myAgent.getLocalName());
+            return;
+        }
+
+        // ACCEPT_PROPOSAL Message has been received. Process it.
+        AuctionCodec.Content order;
+        try {
+            order = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The order of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+        ACLMessage reply = msg.createReply();
+        reply.setPerformative(ACLMessage.INFORM);
+        myAgent.send(reply);
+        AuctionLog.info("Congratulations! You have won the auction!");
+        AuctionLog.info("{} is now yours! With the price {} .", order.itemName, order.price);
+
+        // Subtract the money from budget
+        myAgent.budget -= order.price;
+    }
+}
@@ -0,0 +1,26 @@
+package dutch;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who performs an eager bidder of a dutch auction.
+ * It joins every lot that it can afford and accepts early, in the upper half of the prices it can pay.
+ * It will terminate after the budget runs out.
+ */
+public class AutoBidder2 extends AutoBidder1 {
+
+    @Override
+    protected int choosePrice(int startPrice, int reservePrice) {
+        int top = Math.min(startPrice, budget);
+        if (top < reservePrice) {
+            return -1;
+        }
+        int low = (reservePrice + top) / 2;
+        return low + rn.nextInt(top - low + 1);
+    }
+}
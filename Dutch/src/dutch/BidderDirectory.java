@@ -0,0 +1,125 @@
+package dutch;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.Behaviour;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The local list of the bidders, kept up to date by a subscription to the yellow pages.
+ * The DF notifies the auctioneer whenever a bidder registers or deregisters,
+ * so a lot reads the bidders from memory instead of searching the DF.
+ */
+class BidderDirectory extends SubscriptionInitiator {
+
+    // The bidders that are registered, in the order they registered
+    private final LinkedHashSet<AID> bidders = new LinkedHashSet<>();
+
+    // The bidders as an array, built again only after the list changes
+    private AID[] snapshot = new AID[0];
+    private boolean changed = false;
+
+    // The behaviours that wait for the first bidder
+    private final ArrayList<Behaviour> waiting = new ArrayList<>();
+
+    public BidderDirectory(Agent agent, String serviceType) {
+        super(agent, createSubscription(agent, serviceType));
+    }
+
+    // Create the subscription message for all the agents that offer the service
+    private static ACLMessage createSubscription(Agent agent, String serviceType) {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(serviceType);
+        template.addServices(sd);
+        // No limit on the number of bidders
+        SearchConstraints sc = new SearchConstraints();
+        sc.setMaxResults(Long.valueOf(-1));
+        return DFService.createSubscriptionMessage(agent, agent.getDefaultDF(), template, sc);
+    }
+
+    /**
+    *   It is invoked for every notification of the DF.
+    *   A description with services is a bidder that registered, one without services is a bidder that left.
+    */
+    @Override
+    protected void handleInform(ACLMessage inform) {
+        try {
+            DFAgentDescription[] results = DFService.decodeNotification(inform.getContent());
+            for (int i = 0; i < results.length; ++i) {
+                AID bidder = results[i].getName();
+                if (results[i].getAllServices().hasNext()) {
+                    if (bidders.add(bidder)) {
+                        AuctionLog.info("Bidder {} joined the auctions.", bidder.getName());
+                        changed = true;
+                    }
+                }
+                else if (bidders.remove(bidder)) {
+                    AuctionLog.info("Bidder {} left the auctions.", bidder.getName());
+                    changed = true;
+                }
+            }
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        // Wake up the behaviours that wait for bidders
+        if (!bidders.isEmpty() && !waiting.isEmpty()) {
+            for (Behaviour b : waiting) {
+                b.restart();
+            }
+            waiting.clear();
+        }
+    }
+
+    /**
+    *   It registers a behaviour that blocks until there is a bidder. It is restarted when a bidder registers.
+    */
+    public void waitForBidders(Behaviour b) {
+        if (!waiting.contains(b)) {
+            waiting.add(b);
+        }
+    }
+
+    /**
+    *   It returns the bidders that are registered right now.
+    *   The array is shared until the list changes, so it must not be modified.
+    */
+    public AID[] getBidders() {
+        if (changed) {
+            snapshot = bidders.toArray(new AID[bidders.size()]);
+            changed = false;
+        }
+        return snapshot;
+    }
+
+    /**
+    *   It returns the number of the registered bidders.
+    */
+    public int size() {
+        return bidders.size();
+    }
+
+    /**
+    *   It returns true if no bidder is registered.
+    */
+    public boolean isEmpty() {
+        return bidders.isEmpty();
+    }
+}
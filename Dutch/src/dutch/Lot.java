@@ -0,0 +1,97 @@
+package dutch;
+
+import jade.core.AID;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The state of one item that is being auctioned on a descending clock.
+ * The price starts at the initial price of the item and drops every tick down to the reserve price, until a bidder
+ * accepts it or a tick at the reserve price passes. Every lot has its own conversation id, so that many lots can run at the same time.
+ */
+class Lot {
+
+    // The name of the item on sale
+    public final String itemName;
+
+    // The price where the clock starts
+    public final int startPrice;
+
+    // The lowest price that the item is sold for
+    public final int reservePrice;
+
+    // The drop of the price at every tick
+    public final int drop;
+
+    // The length of a tick (ms)
+    public final int tick;
+
+    // The conversation id of all the messages of this lot
+    public final String conversationId;
+
+    // The price of the clock now
+    public int price;
+
+    // The number of ticks since the offer was sent
+    public int ticks = 0;
+
+    // The time (ms) when the offer was sent, that the ticks are counted from
+    public long startedAt = 0;
+
+    // The bidders that received the offer
+    public AID[] bidders;
+
+    // The bidder who accepted a price that the clock has not reached yet, and its price
+    // (the clock of a bidder can run a little ahead of the clock of the auctioneer)
+    public AID earlyBidder = null;
+    public int earlyPrice = 0;
+
+    // It is true after the lot is sold or cannot be sold
+    public boolean closed = false;
+
+    public Lot(String itemName, int startPrice, int reservePrice, int drop, int tick, String conversationId) {
+        this.itemName = itemName;
+        this.startPrice = startPrice;
+        this.reservePrice = reservePrice;
+        this.drop = drop;
+        this.tick = tick;
+        this.conversationId = conversationId;
+        this.price = startPrice;
+    }
+
+    /**
+    *    It returns the time (ms) of the next tick. The ticks are counted from the offer, so they do not drift.
+    */
+    public long nextTickAt() {
+        return startedAt + (long) (ticks + 1) * tick;
+    }
+
+    /**
+    *    It moves the clock one tick on, and returns false if the price has already spent a tick at the reserve price.
+    *    The last drop stops at the reserve price, so a bidder who values the item between it and the price before gets it.
+    */
+    public boolean step() {
+        if (price <= reservePrice) {
+            return false;
+        }
+        ticks++;
+        price = (int) Math.max(reservePrice, startPrice - (long) ticks * drop);
+        return true;
+    }
+
+    /**
+    *    It keeps a price that a bidder accepted before the clock reached it.
+    *    The clock stops at the highest such price when it reaches it, at the first one on a tie.
+    */
+    public void acceptEarly(AID bidder, int accepted) {
+        if (earlyBidder == null || accepted > earlyPrice) {
+            earlyBidder = bidder;
+            earlyPrice = accepted;
+        }
+    }
+}
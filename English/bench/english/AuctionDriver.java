@@ -0,0 +1,156 @@
+package english;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The end-to-end benchmark of the English auction, without the GUI.
+ * It boots a JADE main container in this JVM, starts a headless auctioneer and the bidders,
+ * feeds the lots at a given rate and waits until all of them are closed, sold or not.
+ * It prints one line of JSON with the lots and the bids per second and the percentiles of the latency of a lot,
+ * from its CFP until its winner is announced.
+ * Settings: -Ddriver.lots=1000 -Ddriver.bidders=8 -Ddriver.rate=0 (lots per second, 0 for all at once)
+ * -Ddriver.args=lots=4,acks=none (the arguments of the auctioneer, proxy=5 for proxy bidding)
+ * -Ddriver.port=1399 -Ddriver.out=file (append the line to a file instead of printing it)
+ * Run it with: ant bench -Dbench.class=english.AuctionDriver
+ */
+public class AuctionDriver implements AuctionEvents {
+
+    // The time (ns) when the current lot of every item started
+    private final HashMap<String,Long> started = new HashMap<>();
+
+    // The latencies (ns) of the lots that closed
+    private long[] latencies = new long[1024];
+    private int closed = 0;
+
+    private long bids = 0;
+
+    // It is counted down for every lot that closes
+    private final CountDownLatch done;
+
+    private long sold = 0;
+
+    AuctionDriver(int lots) {
+        done = new CountDownLatch(lots);
+    }
+
+    public synchronized void lotStarted(String itemName) {
+        started.put(itemName, System.nanoTime());
+    }
+
+    public synchronized void bidReceived(String itemName, int price) {
+        bids++;
+    }
+
+    public synchronized void lotClosed(String itemName, boolean isSold) {
+        Long start = started.remove(itemName);
+        if (start != null) {
+            if (closed == latencies.length) {
+                latencies = Arrays.copyOf(latencies, closed * 2);
+            }
+            latencies[closed++] = System.nanoTime() - start;
+        }
+        if (isSold) {
+            sold++;
+        }
+        done.countDown();
+    }
+
+    // It returns the p-th percentile (ms) of the sorted latencies
+    private static double percentile(long[] sorted, int n, double p) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        int i = (int)Math.min(n - 1, Math.ceil(p / 100 * n) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lots = Integer.getInteger("driver.lots", 1000);
+        int bidders = Integer.getInteger("driver.bidders", 8);
+        double rate = Double.parseDouble(System.getProperty("driver.rate", "0"));
+        String auctioneerArgs = System.getProperty("driver.args", "");
+        int port = Integer.getInteger("driver.port", 1398);
+        String outFile = System.getProperty("driver.out");
+
+        AuctionDriver driver = new AuctionDriver(lots);
+        // The agents log every step of the auction, which would be measured instead of the auction (-Dauction.log=info to measure it too)
+        AuctionLog.setLevel(AuctionLog.parseLevel(System.getProperty("auction.log", "off")));
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(false);
+        ContainerController main = rt.createMainContainer(new ProfileImpl(null, port, null));
+
+        ArrayList<Object> list = new ArrayList<Object>();
+        list.add("headless");
+        for (String a : auctioneerArgs.split(",")) {
+            if (!a.trim().isEmpty()) {
+                list.add(a.trim());
+            }
+        }
+        list.add(driver);
+        AgentController auctioneer = main.createNewAgent("auctioneer", "english.Auctioneer", list.toArray());
+        auctioneer.start();
+        for (int i = 0; i < bidders; i++) {
+            main.createNewAgent("bidder-" + i, "english.BenchBidder", null).start();
+        }
+
+        // Let the bidders register and the auctioneer find them
+        Thread.sleep(2000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < lots; i++) {
+            if (rate > 0) {
+                long due = start + (long)(i * 1e9 / rate);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            auctioneer.putO2AObject(new Catalogue.Item("item-" + i, 10), AgentController.ASYNC);
+        }
+        boolean finished = driver.done.await(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        main.kill();
+        AuctionLog.flush();
+
+        String line;
+        synchronized (driver) {
+            long[] sorted = Arrays.copyOf(driver.latencies, driver.closed);
+            Arrays.sort(sorted);
+            long closedLots = lots - driver.done.getCount();
+            line = String.format(Locale.ROOT,
+                    "{\"protocol\":\"english\",\"args\":\"%s\",\"lots\":%d,\"sold\":%d,\"bidders\":%d,\"rate\":%.1f,\"finished\":%b,"
+                    + "\"seconds\":%.3f,\"lotsPerSecond\":%.1f,\"bidsPerSecond\":%.1f,"
+                    + "\"latencyMs\":{\"p50\":%.3f,\"p99\":%.3f,\"p999\":%.3f}}",
+                    auctioneerArgs, closedLots, driver.sold, bidders, rate, finished,
+                    elapsed / 1e9, closedLots * 1e9 / elapsed, driver.bids * 1e9 / elapsed,
+                    percentile(sorted, sorted.length, 50), percentile(sorted, sorted.length, 99),
+                    percentile(sorted, sorted.length, 99.9));
+        }
+        if (outFile != null) {
+            try (PrintWriter w = new PrintWriter(new FileWriter(outFile, true))) {
+                w.println(line);
+            }
+        }
+        else {
+            System.out.println(line);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,88 @@
+package english;
+
+import jade.core.Agent;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * A bidder for the benchmarks. It has no budget and no output: it pays up to a limit above the initial price of every item,
+ * it joins a round one time in two like the other bidders, and it drops every message that is not a CFP.
+ * To a call for the maximum bids (proxy bidding) it sends its limit.
+ */
+public class BenchBidder extends Agent {
+
+    protected void setup() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("english-auction");
+        sd.setName("english-Auction");
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        addBehaviour(new CyclicBehaviour(this) {
+            private AuctionCodec.Content content = new AuctionCodec.Content();
+            private Random random = new Random();
+
+            // The most that this bidder pays above the initial price of an item
+            private int margin = 50 + random.nextInt(200);
+
+            public void action() {
+                ACLMessage msg = myAgent.receive();
+                if (msg == null) {
+                    block();
+                    return;
+                }
+                if (msg.getPerformative() != ACLMessage.CFP) {
+                    return;
+                }
+                AuctionCodec.Content cfp = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                int bid;
+                if (cfp.type == AuctionCodec.PROXY_CFP) {
+                    // The auctioneer raises the price for it, so it sends the most that it pays
+                    bid = cfp.initialPrice + margin;
+                }
+                else {
+                    bid = Math.max(cfp.initialPrice, cfp.previousPrice + 1) + random.nextInt(10);
+                }
+                ACLMessage reply = msg.createReply();
+                if (random.nextBoolean() && bid <= cfp.initialPrice + margin) {
+                    reply.setPerformative(ACLMessage.PROPOSE);
+                    reply.setByteSequenceContent(AuctionCodec.encodeBid(bid));
+                }
+                else {
+                    reply.setPerformative(ACLMessage.REFUSE);
+                    reply.setContent("Not joining this one...");
+                }
+                myAgent.send(reply);
+            }
+        });
+    }
+
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package english;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It checks the behaviour of the parts of the auctioneer that the benchmarks measure, without a JADE platform:
+ * the round trip of every message of the codec and the rejection of every truncated message,
+ * the trades of the order book against a plain list of orders, the timers of the wheel at every level of its cascade,
+ * the recovery of the journal after a record that was not written whole, the chunk of the journal that a sync forces
+ * when the writer moves to the next chunk meanwhile, and a snapshot with the records after it against the whole journal. A check that fails throws an AssertionError, so the run ends with an error.
+ * Run it with: ant bench -Dbench.class=english.Checks
+ */
+public class Checks {
+
+    // The number of checks that passed
+    static int passed = 0;
+
+    public static void main(String[] args) throws IOException {
+        codec();
+        orderBook();
+        timerWheel();
+        journal();
+        sync();
+        snapshots();
+        System.out.println(passed + " checks passed");
+    }
+
+    // It fails if the condition does not hold
+    static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+        passed++;
+    }
+
+    // Every message is decoded as it was encoded, and every shorter copy of it is rejected
+    private static void codec() {
+        String name = "Vase, blue \u00fc\u20ac";
+        AuctionCodec.Content c = new AuctionCodec.Content();
+
+        byte[] data = AuctionCodec.encodeCfp(name, 100, 250);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.CFP && c.itemName.equals(name) && c.initialPrice == 100 && c.previousPrice == 250, "CFP");
+        truncated(data);
+
+        data = AuctionCodec.encodeProxyCfp(name, 100, 7);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.PROXY_CFP && c.itemName.equals(name) && c.initialPrice == 100 && c.increment == 7, "PROXY_CFP");
+        truncated(data);
+
+        data = AuctionCodec.encodeBid(Integer.MAX_VALUE);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.BID && c.price == Integer.MAX_VALUE, "BID");
+        truncated(data);
+
+        data = AuctionCodec.encodeOrder(name, 1234);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ORDER && c.itemName.equals(name) && c.price == 1234, "ORDER");
+        truncated(data);
+
+        data = AuctionCodec.encodeItem("", 5);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ITEM && c.itemName.isEmpty() && c.initialPrice == 5, "ITEM with an empty name");
+        truncated(data);
+
+        data = AuctionCodec.encodeAck(3, 2);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ACK && c.status == AuctionCodec.ACK_PARTIAL && c.accepted == 3 && c.rejected == 2, "ACK");
+        truncated(data);
+        check(AuctionCodec.ackStatus(1, 0) == AuctionCodec.ACK_ACCEPTED && AuctionCodec.ackStatus(0, 1) == AuctionCodec.ACK_REJECTED,
+                "status of an acknowledgement");
+
+        data = AuctionCodec.encodeLimitOrder(true, 99, 10);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.LIMIT_ORDER && c.buy && c.price == 99 && c.quantity == 10, "LIMIT_ORDER to buy");
+        AuctionCodec.decode(AuctionCodec.encodeLimitOrder(false, 101, 1), c);
+        check(!c.buy && c.price == 101 && c.quantity == 1, "LIMIT_ORDER to sell");
+        truncated(data);
+
+        data = AuctionCodec.encodeCancelOrder(0x123456789AL);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.CANCEL_ORDER && c.orderId == 0x123456789AL, "CANCEL_ORDER");
+        truncated(data);
+
+        data = AuctionCodec.encodeOrderStatus(-2L, 100, 3, 4);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ORDER_STATUS && c.orderId == -2L && c.price == 100 && c.filled == 3 && c.remaining == 4,
+                "ORDER_STATUS");
+        truncated(data);
+
+        // A content of another version or of an unknown type
+        data = AuctionCodec.encodeBid(1);
+        data[0] = AuctionCodec.VERSION + 1;
+        rejected(data, "a content of another version");
+        data = AuctionCodec.encodeBid(1);
+        data[1] = 99;
+        rejected(data, "a content of an unknown type");
+        rejected(null, "a missing content");
+    }
+
+    // Every copy of the message without its last bytes is rejected
+    private static void truncated(byte[] data) {
+        for (int length = 0; length < data.length; length++) {
+            rejected(Arrays.copyOf(data, length), "a content of " + length + " of " + data.length + " bytes");
+        }
+    }
+
+    private static void rejected(byte[] data, String what) {
+        try {
+            AuctionCodec.decode(data, new AuctionCodec.Content());
+        }
+        catch (IllegalArgumentException e) {
+            passed++;
+            return;
+        }
+        throw new AssertionError(what + " is decoded");
+    }
+
+    // The book trades like a plain list of orders that is searched for the best price and the earliest order
+    private static void orderBook() {
+        final List<String> trades = new ArrayList<>();
+        OrderBook book = new OrderBook(new OrderBook.Trades() {
+            public void trade(long buyOrder, String buyer, long sellOrder, String seller, int price, int quantity) {
+                trades.add(buyOrder + "/" + sellOrder + " " + quantity + "@" + price);
+            }
+        });
+
+        // The orders that wait, in the order they arrived: id, side (1 buy), price, units
+        List<long[]> waiting = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            if (!ids.isEmpty() && random.nextInt(4) == 0) {
+                long id = ids.get(random.nextInt(ids.size()));
+                int expected = 0;
+                for (Iterator<long[]> it = waiting.iterator(); it.hasNext(); ) {
+                    long[] order = it.next();
+                    if (order[0] == id) {
+                        expected = (int) order[3];
+                        it.remove();
+                    }
+                }
+                check(book.cancel(id) == expected, "cancel of order " + id);
+            }
+            else {
+                boolean buy = random.nextBoolean();
+                int price = 90 + random.nextInt(21);
+                int quantity = 1 + random.nextInt(10);
+                trades.clear();
+                long id = book.submit(buy, price, quantity, buy ? "buyer" : "seller");
+                ids.add(id);
+
+                List<String> expected = new ArrayList<>();
+                while (quantity > 0) {
+                    long[] best = null;
+                    for (long[] order : waiting) {
+                        if ((order[1] == 1) != buy && (buy ? order[2] <= price : order[2] >= price)
+                                && (best == null || (buy ? order[2] < best[2] : order[2] > best[2]))) {
+                            best = order;
+                        }
+                    }
+                    if (best == null) {
+                        break;
+                    }
+                    int traded = (int) Math.min(quantity, best[3]);
+                    expected.add((buy ? id + "/" + best[0] : best[0] + "/" + id) + " " + traded + "@" + best[2]);
+                    best[3] -= traded;
+                    quantity -= traded;
+                    if (best[3] == 0) {
+                        waiting.remove(best);
+                    }
+                }
+                if (quantity > 0) {
+                    waiting.add(new long[] {id, buy ? 1 : 0, price, quantity});
+                }
+                check(trades.equals(expected), "trades of order " + id + ": " + trades + " instead of " + expected);
+                check(book.remaining(id) == quantity, "units of order " + id + " that wait");
+            }
+
+            int bestBid = -1;
+            int bestAsk = -1;
+            for (long[] order : waiting) {
+                if (order[1] == 1) {
+                    bestBid = (int) Math.max(bestBid, order[2]);
+                }
+                else if (bestAsk < 0 || order[2] < bestAsk) {
+                    bestAsk = (int) order[2];
+                }
+            }
+            check(book.size() == waiting.size() && book.bestBid() == bestBid && book.bestAsk() == bestAsk,
+                    "the book after operation " + i);
+        }
+    }
+
+    // Every timer runs at its tick and not before, in the level of the wheel where it starts and after every cascade
+    private static void timerWheel() {
+        TimerWheel wheel = new TimerWheel(null, 1);
+        long start = System.currentTimeMillis();
+
+        // The delays at the ends of every level (64, 4096 and 262144 ticks), beyond the last level and random ones
+        List<Long> delays = new ArrayList<>(Arrays.asList(1L, 2L, 63L, 64L, 65L, 4095L, 4096L, 4097L,
+                262143L, 262144L, 262145L, 16777215L, 16777216L, 20000000L));
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            delays.add(1L + random.nextInt(1 << (6 * (1 + i % 4))));
+        }
+
+        final List<Long> ran = new ArrayList<>();
+        final long[] times = new long[delays.size()];
+        List<TimerWheel.Timer> cancelled = new ArrayList<>();
+        for (int i = 0; i < delays.size(); i++) {
+            final long time = start + delays.get(i);
+            times[i] = time;
+            TimerWheel.Timer timer = wheel.scheduleAt(time, new Runnable() {
+                public void run() {
+                    ran.add(time);
+                }
+            });
+            if (i % 10 == 9) {
+                cancelled.add(timer);
+            }
+        }
+        for (TimerWheel.Timer timer : cancelled) {
+            check(wheel.cancel(timer) && !wheel.cancel(timer), "cancel of a timer");
+        }
+
+        long[] expected = new long[times.length - cancelled.size()];
+        for (int i = 0, j = 0; i < times.length; i++) {
+            if (i % 10 != 9) {
+                expected[j++] = times[i];
+            }
+        }
+        Arrays.sort(expected);
+        int due = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (i > 0 && expected[i] == expected[i - 1]) {
+                continue;
+            }
+            wheel.advance(expected[i] - 1);
+            check(ran.size() == due, "no timer before " + (expected[i] - start) + " ms");
+            wheel.advance(expected[i]);
+            while (due < expected.length && expected[due] == expected[i]) {
+                due++;
+            }
+            check(ran.size() == due && ran.get(due - 1) == expected[i], "the timers of " + (expected[i] - start) + " ms");
+        }
+        check(wheel.size() == 0, "no timer left");
+    }
+
+    // A record that was not written whole ends the journal, and the next record is written in its place
+    private static void journal() throws IOException {
+        for (int torn = 0; torn < 2; torn++) {
+            File file = File.createTempFile("journal", ".log");
+            file.deleteOnExit();
+            String path = file.getPath();
+
+            BidJournal journal = BidJournal.open(path, 0, 0, null);
+            journal.item("Vase, blue", 100);
+            journal.bid("Vase, blue", 120, "b1");
+            long last = journal.getWritten();
+            journal.bid("Vase, blue", 150, "b2");
+            journal.close();
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (torn == 0) {
+                    // The length was not written yet
+                    raf.seek(last);
+                    raf.writeInt(0);
+                }
+                else {
+                    // A byte of the record was not written, so its CRC does not match
+                    raf.seek(last + 12);
+                    raf.write(raf.read() ^ 0x5A);
+                }
+            }
+
+            State state = new State();
+            journal = BidJournal.open(path, 0, 0, state);
+            check(journal.getRecovered() == 2 && state.toString().equals("{Vase, blue=[100, 120]}"),
+                    "recovery before a torn record: " + state);
+            journal.bid("Vase, blue", 130, "b3");
+            journal.close();
+
+            state = new State();
+            journal = BidJournal.open(path, 0, 0, state);
+            journal.close();
+            check(journal.getRecovered() == 3 && state.toString().equals("{Vase, blue=[100, 120, 130]}"),
+                    "a record after a torn record: " + state);
+        }
+    }
+
+    // A sync forces the chunk that holds the records it marks as synced, even if the writer fills that chunk meanwhile
+    private static void sync() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        file.deleteOnExit();
+
+        final BidJournal journal = BidJournal.open(file.getPath(), 0, 0, null);
+        journal.bid("a", 1, "b1");
+        MappedByteBuffer forced = journal.sync(new Runnable() {
+            public void run() {
+                // The writer moves to the next chunk between the full chunks and the chunk that is written now
+                long chunk = journal.getWritten() / BidJournal.CHUNK_SIZE;
+                while (journal.getWritten() / BidJournal.CHUNK_SIZE == chunk) {
+                    journal.bid("next", 2, "b2");
+                }
+            }
+        });
+        // The name of the first record of a chunk starts after its length, its CRC, its type and the length of the name
+        check(forced != null && forced.get(11) == 'a', "the chunk of the first record is forced");
+        forced = journal.sync(null);
+        check(forced != null && forced.get(11) == 'n', "the next sync forces the next chunk");
+        check(journal.sync(null) == null, "nothing to force");
+        journal.close();
+    }
+
+    // A snapshot and the records of the journal after it give the state of the whole journal
+    private static void snapshots() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        File snapshot = new File(file.getPath() + ".snap");
+        file.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        BidJournal journal = BidJournal.open(file.getPath(), 0, 0, null);
+        Snapshots snapshots = new Snapshots(snapshot.getPath());
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            String name = "item" + random.nextInt(50);
+            int r = random.nextInt(10);
+            if (r < 2) {
+                journal.item(name, random.nextInt(1000));
+            }
+            else if (r < 8) {
+                journal.bid(name, random.nextInt(2000), "b" + random.nextInt(5));
+            }
+            else if (r < 9) {
+                journal.sold(name, random.nextInt(2000), "b" + random.nextInt(5));
+            }
+            else {
+                journal.removed(name);
+            }
+            if (i == 1000) {
+                snapshots.take(journal);
+            }
+        }
+        journal.close();
+
+        State whole = new State();
+        BidJournal.open(file.getPath(), 0, 0, whole).close();
+
+        Snapshots loaded = Snapshots.load(snapshot.getPath());
+        check(loaded.getPosition() > 0 && loaded.getPosition() < file.length(), "the position of the snapshot");
+        State restored = new State();
+        loaded.restore(restored);
+        BidJournal.open(file.getPath(), 0, loaded.getPosition(), restored).close();
+        check(restored.toString().equals(whole.toString()), "snapshot and replay: " + restored + " instead of " + whole);
+    }
+
+    /**
+    *   The catalogue that the records of a journal build: every item with its price and then its bids.
+    */
+    static class State implements BidJournal.Records {
+        private final LinkedHashMap<String,List<Integer>> items = new LinkedHashMap<>();
+
+        public void item(String name, int price) {
+            List<Integer> item = items.get(name);
+            if (item != null) {
+                item.set(0, price);
+            }
+            else {
+                items.put(name, new ArrayList<>(Arrays.asList(price)));
+            }
+        }
+
+        public void bid(String name, int price, String bidder) {
+            List<Integer> item = items.get(name);
+            if (item != null) {
+                item.add(price);
+            }
+        }
+
+        public void sold(String name, int price, String winner) {
+            items.remove(name);
+        }
+
+        public void removed(String name) {
+            items.remove(name);
+        }
+
+        public String toString() {
+            return items.toString();
+        }
+    }
+}
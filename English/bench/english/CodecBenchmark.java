@@ -0,0 +1,61 @@
+package english;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It compares the binary content of AuctionCodec with the old comma-joined string content:
+ * the cost to encode and decode a CFP and a bid, and the size of the messages.
+ */
+public class CodecBenchmark {
+
+    public static void main(String[] args) {
+        final String[] names = new String[64];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Antique vase number " + i;
+        }
+        final AuctionCodec.Content content = new AuctionCodec.Content();
+
+        // The size of the messages
+        String name = names[7];
+        String cfpString = name + "," + 1500 + "," + 1720;
+        System.out.println("CFP size:  string " + cfpString.getBytes(StandardCharsets.UTF_8).length
+                + " bytes, binary " + AuctionCodec.encodeCfp(name, 1500, 1720).length + " bytes");
+        System.out.println("Bid size:  string " + String.valueOf(1720).getBytes(StandardCharsets.UTF_8).length
+                + " bytes, binary " + AuctionCodec.encodeBid(1720).length + " bytes");
+
+        new Bench("cfp string encode+decode") {
+            long op(int i) {
+                String s = names[i & 63] + "," + (1000 + (i & 1023)) + "," + (i & 511);
+                String[] components = s.split(",");
+                return components[0].length() + Integer.parseInt(components[1]) + Integer.parseInt(components[2]);
+            }
+        }.run();
+
+        new Bench("cfp binary encode+decode") {
+            long op(int i) {
+                byte[] data = AuctionCodec.encodeCfp(names[i & 63], 1000 + (i & 1023), i & 511);
+                AuctionCodec.decode(data, content);
+                return content.itemName.length() + content.initialPrice + content.previousPrice;
+            }
+        }.run();
+
+        new Bench("bid string encode+decode") {
+            long op(int i) {
+                return Integer.parseInt(String.valueOf(1000 + (i & 1023)));
+            }
+        }.run();
+
+        new Bench("bid binary encode+decode") {
+            long op(int i) {
+                return AuctionCodec.decode(AuctionCodec.encodeBid(1000 + (i & 1023)), content).price;
+            }
+        }.run();
+    }
+}
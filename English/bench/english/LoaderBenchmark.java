@@ -0,0 +1,62 @@
+package english;
+
+import java.io.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It measures the catalogue loader: it writes a file of items as text and as binary,
+ * and loads each of them into a catalogue, chunk by chunk as the auctioneer does, without a JADE platform.
+ * Settings: -Dbench.items=1000000
+ * Run it with: ant bench -Dbench.class=english.LoaderBenchmark
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int items = Integer.getInteger("bench.items", 1000000);
+
+        File text = File.createTempFile("items", ".csv");
+        File binary = File.createTempFile("items", ".bin");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(text), "UTF-8"))) {
+            w.write("name,price\n");
+            for (int i = 0; i < items; i++) {
+                w.write("Antique vase, number " + i + "," + (1000 + i % 1000) + "\n");
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binary)))) {
+            out.write(CatalogueLoader.MAGIC);
+            out.write(CatalogueLoader.VERSION);
+            for (int i = 0; i < items; i++) {
+                CatalogueLoader.writeBinary(out, "Antique vase, number " + i, 1000 + i % 1000);
+            }
+        }
+
+        load("text", text);
+        load("binary", binary);
+    }
+
+    // Load a file into a new catalogue and print the time it took
+    private static void load(String format, File file) throws IOException {
+        final Catalogue catalogue = new Catalogue();
+        CatalogueLoader loader = new CatalogueLoader(null, new FileInputStream(file), file.getName()) {
+            protected void deliver(CatalogueLoader.Chunk chunk) {
+                for (int i = 0; i < chunk.size; i++) {
+                    catalogue.put(chunk.names[i], chunk.prices[i]);
+                }
+            }
+        };
+        long start = System.nanoTime();
+        loader.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-8s %10d items %8.2f s %12.0f items/s %8d MB file",
+                format, catalogue.size(), seconds, catalogue.size() / seconds, file.length() >> 20));
+    }
+}
@@ -0,0 +1,119 @@
+package english;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It measures the order book of the market, without a JADE platform: the orders per second of a flow
+ * of limit orders and cancellations around the middle of a book that already holds many orders,
+ * and the percentiles of the latency of matching one order.
+ * The flow is drawn before it is measured: half of the orders buy and half sell, at a price up to "bench.spread"
+ * from the middle, so about half of them cross the other side; "bench.cancels" percent of the operations cancel
+ * one of the last 1024 orders. Settings: -Dbench.orders=2000000 -Dbench.book=100000 -Dbench.spread=50 -Dbench.cancels=30
+ * Run it with: ant bench -Dbench.class=english.OrderBookBenchmark
+ */
+public class OrderBookBenchmark {
+
+    // The number of trades, so that the JIT cannot drop them
+    static long traded = 0;
+
+    public static void main(String[] args) {
+        final int orders = Integer.getInteger("bench.orders", 2000000);
+        int book = Integer.getInteger("bench.book", 100000);
+        final int spread = Integer.getInteger("bench.spread", 50);
+        int cancels = Integer.getInteger("bench.cancels", 30);
+        final int mid = 100000;
+
+        // The flow of orders: the side, the price and the units of an order, or a cancel
+        Random random = new Random(42);
+        final boolean[] cancel = new boolean[orders];
+        final boolean[] buy = new boolean[orders];
+        final int[] prices = new int[orders];
+        final int[] quantities = new int[orders];
+        for (int i = 0; i < orders; i++) {
+            cancel[i] = random.nextInt(100) < cancels;
+            buy[i] = random.nextBoolean();
+            prices[i] = mid + random.nextInt(2 * spread + 1) - spread;
+            quantities[i] = 1 + random.nextInt(10);
+        }
+
+        OrderBook.Trades trades = new OrderBook.Trades() {
+            public void trade(long buyOrder, String buyer, long sellOrder, String seller, int price, int quantity) {
+                traded += quantity;
+            }
+        };
+
+        // Orders that wait in the book and do not cross: buyers below the middle and sellers above it
+        final OrderBook orderBook = new OrderBook(trades);
+        fill(orderBook, book, mid, spread, random);
+
+        // The time to post and cancel an order that waits, and to run the flow
+        new Bench("post and cancel an order that waits") {
+            long op(int i) {
+                long id = orderBook.submit((i & 1) == 0, (i & 1) == 0 ? mid - spread - 1 - (i & 63) : mid + spread + 1 + (i & 63), 5, "bench");
+                return orderBook.cancel(id);
+            }
+        }.run();
+        new Bench("flow of orders and cancels") {
+            final long[] recent = new long[1024];
+            long op(int i) {
+                int k = i % orders;
+                if (cancel[k]) {
+                    return orderBook.cancel(recent[(i * 31) & 1023]);
+                }
+                long id = orderBook.submit(buy[k], prices[k], quantities[k], "bench");
+                recent[i & 1023] = id;
+                return id;
+            }
+        }.run();
+
+        // The latency of every operation of the flow, on a new book
+        OrderBook measured = new OrderBook(trades);
+        fill(measured, book, mid, spread, random);
+        long[] latencies = new long[orders];
+        long[] recent = new long[1024];
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            long t0 = System.nanoTime();
+            if (cancel[i]) {
+                measured.cancel(recent[(i * 31) & 1023]);
+            }
+            else {
+                recent[i & 1023] = measured.submit(buy[i], prices[i], quantities[i], "bench");
+            }
+            latencies[i] = System.nanoTime() - t0;
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.println(String.format(Locale.ROOT,
+                "%d operations in %.3f s: %.0f orders/s, %d trades of %d units, %d orders wait, best bid %d, best ask %d",
+                orders, elapsed / 1e9, orders * 1e9 / elapsed, measured.getTrades(), measured.getVolume(),
+                measured.size(), measured.bestBid(), measured.bestAsk()));
+        System.out.println(String.format(Locale.ROOT,
+                "latency ns: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 99.9), latencies[orders - 1]));
+        Bench.sink = traded;
+    }
+
+    // It posts orders that do not cross, from the middle outwards on both sides
+    private static void fill(OrderBook book, int orders, int mid, int spread, Random random) {
+        for (int i = 0; i < orders; i++) {
+            boolean buy = (i & 1) == 0;
+            int distance = spread + 1 + random.nextInt(10 * spread);
+            book.submit(buy, buy ? mid - distance : mid + distance, 1 + random.nextInt(10), "book");
+        }
+    }
+
+    // It returns the p-th percentile of the sorted latencies
+    private static long percentile(long[] sorted, double p) {
+        int i = (int)Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1);
+        return sorted[Math.max(0, i)];
+    }
+}
@@ -0,0 +1,318 @@
+package english;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The binary content of the messages of the auction, used by both the auctioneer and the bidders.
+ * It is sent as the byte sequence content of the ACL message:
+ * one byte for the version, one byte for the type of the message and then the fields of the type.
+ * A name is written as its length in bytes (2 bytes) followed by its UTF-8 bytes, so it may contain commas,
+ * and a price is written as 4 bytes.
+ * <pre>
+ *   CFP       : version, type, name, initial price, previous price
+ *   BID       : version, type, price
+ *   ORDER     : version, type, name, price
+ *   ACK       : version, type, status, accepted bids, rejected bids
+ *   ITEM      : version, type, name, initial price
+ *   PROXY_CFP : version, type, name, initial price, increment
+ *   LIMIT_ORDER : version, type, side (1 buy, 0 sell), price, quantity
+ *   CANCEL_ORDER : version, type, order id (8 bytes)
+ *   ORDER_STATUS : version, type, order id (8 bytes), price, filled quantity, remaining quantity
+ * </pre>
+ */
+final class AuctionCodec {
+
+    // The version of the format
+    public static final byte VERSION = 1;
+
+    // The types of the messages
+    public static final byte CFP = 1;
+    public static final byte BID = 2;
+    public static final byte ORDER = 3;
+    public static final byte ACK = 6;
+    public static final byte ITEM = 7;
+    public static final byte PROXY_CFP = 10;
+    public static final byte LIMIT_ORDER = 15;
+    public static final byte CANCEL_ORDER = 16;
+    public static final byte ORDER_STATUS = 17;
+
+    // The status of an acknowledgement: all the bids were kept, some of them or none of them
+    public static final byte ACK_ACCEPTED = 0;
+    public static final byte ACK_PARTIAL = 1;
+    public static final byte ACK_REJECTED = 2;
+
+    // The longest name, in UTF-8 bytes, that fits in the length field
+    public static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    /**
+    *   The decoded content of a message. It can be used again for every message.
+    */
+    static final class Content {
+        public byte type;
+        public String itemName;
+        public int initialPrice;
+        public int previousPrice;
+        public int price;
+
+        // The increment of a call for the maximum bids
+        public int increment;
+
+        // A limit order of a market: its side, its units and its id
+        public boolean buy;
+        public int quantity;
+        public long orderId;
+
+        // The status of an order of a market: the units that are filled and the units that wait in the book
+        public int filled;
+        public int remaining;
+
+        // The acknowledgement of bids
+        public byte status;
+        public int accepted;
+        public int rejected;
+    }
+
+    private AuctionCodec() {
+    }
+
+    /**
+    *   It encodes a call for proposals for an item.
+    */
+    public static byte[] encodeCfp(String itemName, int initialPrice, int previousPrice) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4];
+        int off = header(data, CFP);
+        off = putName(data, off, name);
+        off = putInt(data, off, initialPrice);
+        putInt(data, off, previousPrice);
+        return data;
+    }
+
+    /**
+    *   It encodes a call for the maximum bids for an item, that the auctioneer raises by the increment for the bidders.
+    */
+    public static byte[] encodeProxyCfp(String itemName, int initialPrice, int increment) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4];
+        int off = header(data, PROXY_CFP);
+        off = putName(data, off, name);
+        off = putInt(data, off, initialPrice);
+        putInt(data, off, increment);
+        return data;
+    }
+
+    /**
+    *   It encodes a limit order of a market: a buy order for up to a price or a sell order for at least a price.
+    */
+    public static byte[] encodeLimitOrder(boolean buy, int price, int quantity) {
+        byte[] data = new byte[2 + 1 + 4 + 4];
+        int off = header(data, LIMIT_ORDER);
+        data[off] = (byte)(buy ? 1 : 0);
+        off = putInt(data, off + 1, price);
+        putInt(data, off, quantity);
+        return data;
+    }
+
+    /**
+    *   It encodes the cancellation of the units of an order that wait in the book of a market.
+    */
+    public static byte[] encodeCancelOrder(long orderId) {
+        byte[] data = new byte[2 + 8];
+        putLong(data, header(data, CANCEL_ORDER), orderId);
+        return data;
+    }
+
+    /**
+    *   It encodes the status of an order of a market: the units that are filled at a price and the units that still wait.
+    */
+    public static byte[] encodeOrderStatus(long orderId, int price, int filled, int remaining) {
+        byte[] data = new byte[2 + 8 + 4 + 4 + 4];
+        int off = header(data, ORDER_STATUS);
+        off = putLong(data, off, orderId);
+        off = putInt(data, off, price);
+        off = putInt(data, off, filled);
+        putInt(data, off, remaining);
+        return data;
+    }
+
+    /**
+    *   It encodes a bid.
+    */
+    public static byte[] encodeBid(int price) {
+        byte[] data = new byte[2 + 4];
+        putInt(data, header(data, BID), price);
+        return data;
+    }
+
+    /**
+    *   It encodes the order that is sent to the winner of an item.
+    */
+    public static byte[] encodeOrder(String itemName, int price) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ORDER);
+        off = putName(data, off, name);
+        putInt(data, off, price);
+        return data;
+    }
+
+    /**
+    *   It encodes an item for sale, that is sent to the auctioneer that sells it.
+    */
+    public static byte[] encodeItem(String itemName, int initialPrice) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ITEM);
+        off = putName(data, off, name);
+        putInt(data, off, initialPrice);
+        return data;
+    }
+
+    /**
+    *   It encodes the acknowledgement of the bids of a bidder, with its status and the number of bids
+    *   that were kept and that were not kept.
+    */
+    public static byte[] encodeAck(int accepted, int rejected) {
+        byte[] data = new byte[2 + 1 + 4 + 4];
+        int off = header(data, ACK);
+        data[off] = ackStatus(accepted, rejected);
+        off = putInt(data, off + 1, accepted);
+        putInt(data, off, rejected);
+        return data;
+    }
+
+    /**
+    *   It returns the status of an acknowledgement with these numbers of kept and not kept bids.
+    */
+    public static byte ackStatus(int accepted, int rejected) {
+        if (rejected == 0) {
+            return ACK_ACCEPTED;
+        }
+        return accepted > 0 ? ACK_PARTIAL : ACK_REJECTED;
+    }
+
+    /**
+    *   It decodes the content of a message into the given content and returns it.
+    *   The fields that the type does not have are left as they were.
+    *   @throws IllegalArgumentException if the content is missing, truncated or of another version
+    */
+    public static Content decode(byte[] data, Content into) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("The content is empty!");
+        }
+        if (data[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown version " + data[0] + " of the content!");
+        }
+        try {
+            into.type = data[1];
+            int off = 2;
+            switch (into.type) {
+                case CFP:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    into.previousPrice = getInt(data, off + 4);
+                    break;
+                case PROXY_CFP:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    into.increment = getInt(data, off + 4);
+                    break;
+                case BID:
+                    into.price = getInt(data, off);
+                    break;
+                case ORDER:
+                    off = readName(data, off, into);
+                    into.price = getInt(data, off);
+                    break;
+                case LIMIT_ORDER:
+                    into.buy = data[off] != 0;
+                    into.price = getInt(data, off + 1);
+                    into.quantity = getInt(data, off + 5);
+                    break;
+                case CANCEL_ORDER:
+                    into.orderId = getLong(data, off);
+                    break;
+                case ORDER_STATUS:
+                    into.orderId = getLong(data, off);
+                    into.price = getInt(data, off + 8);
+                    into.filled = getInt(data, off + 12);
+                    into.remaining = getInt(data, off + 16);
+                    break;
+                case ITEM:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    break;
+                case ACK:
+                    into.status = data[off];
+                    into.accepted = getInt(data, off + 1);
+                    into.rejected = getInt(data, off + 5);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown type " + into.type + " of the content!");
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("The content is truncated!");
+        }
+        return into;
+    }
+
+    private static byte[] nameBytes(String itemName) {
+        byte[] name = itemName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("The name of the item is too long!");
+        }
+        return name;
+    }
+
+    private static int header(byte[] data, byte type) {
+        data[0] = VERSION;
+        data[1] = type;
+        return 2;
+    }
+
+    private static int putName(byte[] data, int off, byte[] name) {
+        data[off] = (byte)(name.length >>> 8);
+        data[off + 1] = (byte)name.length;
+        System.arraycopy(name, 0, data, off + 2, name.length);
+        return off + 2 + name.length;
+    }
+
+    private static int readName(byte[] data, int off, Content into) {
+        int length = ((data[off] & 0xFF) << 8) | (data[off + 1] & 0xFF);
+        if (off + 2 + length > data.length) {
+            throw new ArrayIndexOutOfBoundsException(off + 2 + length);
+        }
+        into.itemName = new String(data, off + 2, length, StandardCharsets.UTF_8);
+        return off + 2 + length;
+    }
+
+    private static int putInt(byte[] data, int off, int value) {
+        data[off] = (byte)(value >>> 24);
+        data[off + 1] = (byte)(value >>> 16);
+        data[off + 2] = (byte)(value >>> 8);
+        data[off + 3] = (byte)value;
+        return off + 4;
+    }
+
+    private static int getInt(byte[] data, int off) {
+        return ((data[off] & 0xFF) << 24) | ((data[off + 1] & 0xFF) << 16)
+                | ((data[off + 2] & 0xFF) << 8) | (data[off + 3] & 0xFF);
+    }
+
+    private static int putLong(byte[] data, int off, long value) {
+        putInt(data, off, (int)(value >>> 32));
+        return putInt(data, off + 4, (int)value);
+    }
+
+    private static long getLong(byte[] data, int off) {
+        return ((long)getInt(data, off) << 32) | (getInt(data, off + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,40 @@
+package english;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The events of the auctioneer, for a program that watches the auctions, like a benchmark driver.
+ * It is given to the auctioneer as an argument object and it is called by the thread of the auctioneer.
+ */
+interface AuctionEvents {
+
+    // It does nothing, for an auctioneer that nobody watches
+    AuctionEvents NONE = new AuctionEvents() {
+        public void lotStarted(String itemName) {
+        }
+        public void bidReceived(String itemName, int price) {
+        }
+        public void lotClosed(String itemName, boolean sold) {
+        }
+    };
+
+    /**
+    *   It is invoked when the first CFP for an item is sent.
+    */
+    void lotStarted(String itemName);
+
+    /**
+    *   It is invoked for every bid that is received for an item.
+    */
+    void bidReceived(String itemName, int price);
+
+    /**
+    *   It is invoked when the lot of an item closes, sold or not.
+    */
+    void lotClosed(String itemName, boolean sold);
+}
@@ -0,0 +1,317 @@
+package english;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The log of the auctions, that takes the printing to the console off the threads of the agents.
+ * A message has a level and a pattern, where every {} is replaced by the next argument.
+ * A message below the level of the log (system property "auction.log", or argument "log" of the auctioneer:
+ * "debug", "info", "warn", "error" or "off", "info" by default) is dropped at once, and its arguments are never formatted.
+ * The other messages go to a ring buffer of fixed size with their arguments, and a thread of the log
+ * formats and prints them in batches to System.out. If the buffer is full the message is dropped and counted,
+ * so an agent never waits for the console.
+ */
+class AuctionLog {
+
+    // The levels of the messages
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+
+    // The number of messages that the buffer keeps (a power of two)
+    public static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+
+    // The longest time (ms) that the thread of the log sleeps when there is nothing to print
+    private static final long IDLE_WAIT = 50;
+
+    /**
+    *   A message in the buffer, reused when the buffer wraps.
+    */
+    private static class Entry {
+        String pattern;
+        Object a;
+        Object b;
+        Object c;
+        Object d;
+    }
+
+    private static volatile int level = parseLevel(System.getProperty("auction.log", "info"));
+
+    private static final Entry[] ring = new Entry[CAPACITY];
+
+    // For every slot: the position that may write it next, or the position plus one when it can be read
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+
+    // The next position to print, written by the thread of the log only
+    private static volatile long head = 0;
+
+    // The messages that were dropped because the buffer was full
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile boolean sleeping = false;
+
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+            sequences.set(i, i);
+        }
+        writer = new Thread(new Runnable() {
+            public void run() {
+                write();
+            }
+        }, "auction-log");
+        writer.setDaemon(true);
+        writer.start();
+        // Print what is left in the buffer when the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                flush();
+            }
+        });
+    }
+
+    private AuctionLog() {
+    }
+
+    /**
+    *   It returns the level of a name: "debug", "info", "warn", "error" or "off".
+    */
+    public static int parseLevel(String value) {
+        if ("debug".equals(value)) {
+            return DEBUG;
+        }
+        if ("info".equals(value)) {
+            return INFO;
+        }
+        if ("warn".equals(value)) {
+            return WARN;
+        }
+        if ("error".equals(value)) {
+            return ERROR;
+        }
+        if ("off".equals(value)) {
+            return OFF;
+        }
+        throw new IllegalArgumentException("Unknown level of the log: " + value);
+    }
+
+    /**
+    *   It sets the level of the log, for all the agents of this JVM.
+    */
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    /**
+    *   It returns true if the messages of a level are printed.
+    */
+    public static boolean isEnabled(int messageLevel) {
+        return messageLevel >= level;
+    }
+
+    /**
+    *   It returns true if the debug messages are printed. A caller checks it before a debug message
+    *   whose arguments are numbers, so that they are not boxed when the message is dropped.
+    */
+    public static boolean isDebugEnabled() {
+        return DEBUG >= level;
+    }
+
+    public static void debug(String pattern) {
+        if (DEBUG >= level) add(pattern, null, null, null, null);
+    }
+
+    public static void debug(String pattern, Object a) {
+        if (DEBUG >= level) add(pattern, a, null, null, null);
+    }
+
+    public static void debug(String pattern, Object a, Object b) {
+        if (DEBUG >= level) add(pattern, a, b, null, null);
+    }
+
+    public static void debug(String pattern, Object a, Object b, Object c) {
+        if (DEBUG >= level) add(pattern, a, b, c, null);
+    }
+
+    public static void debug(String pattern, Object a, Object b, Object c, Object d) {
+        if (DEBUG >= level) add(pattern, a, b, c, d);
+    }
+
+    public static void info(String pattern) {
+        if (INFO >= level) add(pattern, null, null, null, null);
+    }
+
+    public static void info(String pattern, Object a) {
+        if (INFO >= level) add(pattern, a, null, null, null);
+    }
+
+    public static void info(String pattern, Object a, Object b) {
+        if (INFO >= level) add(pattern, a, b, null, null);
+    }
+
+    public static void info(String pattern, Object a, Object b, Object c) {
+        if (INFO >= level) add(pattern, a, b, c, null);
+    }
+
+    public static void info(String pattern, Object a, Object b, Object c, Object d) {
+        if (INFO >= level) add(pattern, a, b, c, d);
+    }
+
+    public static void warn(String pattern) {
+        if (WARN >= level) add(pattern, null, null, null, null);
+    }
+
+    public static void warn(String pattern, Object a) {
+        if (WARN >= level) add(pattern, a, null, null, null);
+    }
+
+    public static void warn(String pattern, Object a, Object b) {
+        if (WARN >= level) add(pattern, a, b, null, null);
+    }
+
+    public static void warn(String pattern, Object a, Object b, Object c) {
+        if (WARN >= level) add(pattern, a, b, c, null);
+    }
+
+    public static void warn(String pattern, Object a, Object b, Object c, Object d) {
+        if (WARN >= level) add(pattern, a, b, c, d);
+    }
+
+    public static void error(String pattern) {
+        if (ERROR >= level) add(pattern, null, null, null, null);
+    }
+
+    public static void error(String pattern, Object a) {
+        if (ERROR >= level) add(pattern, a, null, null, null);
+    }
+
+    public static void error(String pattern, Object a, Object b) {
+        if (ERROR >= level) add(pattern, a, b, null, null);
+    }
+
+    public static void error(String pattern, Object a, Object b, Object c) {
+        if (ERROR >= level) add(pattern, a, b, c, null);
+    }
+
+    public static void error(String pattern, Object a, Object b, Object c, Object d) {
+        if (ERROR >= level) add(pattern, a, b, c, d);
+    }
+
+    // Put a message in the buffer, from any thread
+    private static void add(String pattern, Object a, Object b, Object c, Object d) {
+        long position = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) (position & MASK);
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            }
+            else if (sequence < position) {
+                // The thread of the log has not printed this slot yet
+                dropped.incrementAndGet();
+                return;
+            }
+            else {
+                // Another thread took this position
+                position = tail.get();
+            }
+        }
+        Entry entry = ring[slot];
+        entry.pattern = pattern;
+        entry.a = a;
+        entry.b = b;
+        entry.c = c;
+        entry.d = d;
+        sequences.lazySet(slot, position + 1);
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+    *   It waits until the messages that are in the buffer now have been printed, or for one second at most.
+    */
+    public static void flush() {
+        long target = tail.get();
+        long end = System.nanoTime() + 1000000000L;
+        while (head < target && System.nanoTime() < end) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(1000000L);
+        }
+    }
+
+    // The loop of the thread of the log
+    private static void write() {
+        StringBuilder out = new StringBuilder(1 << 16);
+        while (true) {
+            long position = head;
+            int slot = (int) (position & MASK);
+            if (sequences.get(slot) == position + 1) {
+                Entry entry = ring[slot];
+                format(out, entry.pattern, entry.a, entry.b, entry.c, entry.d);
+                entry.pattern = null;
+                entry.a = null;
+                entry.b = null;
+                entry.c = null;
+                entry.d = null;
+                sequences.lazySet(slot, position + CAPACITY);
+                head = position + 1;
+                if (out.length() < (1 << 16)) {
+                    continue;
+                }
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                out.append(lost).append(" messages of the log were dropped.").append(System.lineSeparator());
+            }
+            if (out.length() > 0) {
+                // The stream is read every time, so a program can still redirect System.out
+                PrintStream stream = System.out;
+                stream.print(out);
+                stream.flush();
+                out.setLength(0);
+                continue;
+            }
+            sleeping = true;
+            if (sequences.get((int) (head & MASK)) != head + 1) {
+                LockSupport.parkNanos(IDLE_WAIT * 1000000L);
+            }
+            sleeping = false;
+        }
+    }
+
+    // Replace every {} of the pattern by the next argument
+    private static void format(StringBuilder out, String pattern, Object a, Object b, Object c, Object d) {
+        int argument = 0;
+        int from = 0;
+        int at;
+        while (argument < 4 && (at = pattern.indexOf("{}", from)) >= 0) {
+            out.append(pattern, from, at);
+            out.append(argument == 0 ? a : argument == 1 ? b : argument == 2 ? c : d);
+            argument++;
+            from = at + 2;
+        }
+        out.append(pattern, from, pattern.length());
+        out.append(System.lineSeparator());
+    }
+}
@@ -1,567 +1,964 @@
-package english;
-
-import jade.core.Agent;
-import jade.core.AID;
-import jade.core.behaviours.*;
-import jade.lang.acl.ACLMessage;
-import jade.lang.acl.MessageTemplate;
-import jade.domain.DFService;
-import jade.domain.FIPAException;
-import jade.domain.FIPAAgentManagement.DFAgentDescription;
-import jade.domain.FIPAAgentManagement.ServiceDescription;
-
-import java.util.*;
-
-/**
- * 
- * @author Eirini Mitsopoulou
- * @author Kyriaki-Nektaria Pantelidou
- * @author Konstantina Papadopoulou
- */
-
-
-/**
- * This class creates a JADE agent who performs an auctioneer of an english auction.
- */
-public class Auctioneer extends Agent {
-
-    // The catalogue of items for sale -> it maps the name of an item to its price
-    private Hashtable catalogue;
-    
-    // The catalogue of bids for each item
-    public HashMap<String,ArrayList<Integer>> priceList ;
-	
-    // The GUI through which the user can add items in the catalogue
-    private AuctioneerGUI myGUI;
-
-    // It is true if the auction has begun
-    private boolean auctionBegan = false;
-
-    // The template to receive replies
-    public MessageTemplate mt; 
-
-    // The list of bidders
-    public AID[] bidders;
-
-    // The bidder who provides the best offer
-    public AID bestBidder;
-
-    // The best offered price currently
-    public int bestPrice;
-
-    // It is true if there are bidders found
-    public boolean biddersFound = false;
-    
-    // It returns true if there is CFP sent
-    //CFP is a constant identifying the FIPA( Foundation for Intelligent Physical Agents ) performative
-    public boolean CFPSent = false;
-    
-    //It is true if there are bids received
-    public boolean bidsReceived = false;
-    
-    //Previous' "time circle" best price and bidder
-    public int previousPrice=0;
-    public AID previousBidder=null;
-    
-    //the count of bidders
-    public int biddersCount=0;
-
-    public FindBidder p = null;
-    public SendCFP q = null;
-    public ReceiveBids r = null;
-    public AnnounceWinner s = null;
-    
-    public void setAuctioneer(HashMap priceList, int previousPrice, AID previousBidder) {
-
-    this.priceList=priceList;
-    this.previousPrice=previousPrice;
-    this.previousBidder=previousBidder;
-    
-    auctionBegan = false;
-    mt=null; 
-    bidders=null;
-    bestPrice=0;
-    biddersFound = false;
-    CFPSent = false;
-    bidsReceived = false;
-    
-    p = null;
-    q = null;
-    r = null;
-    s = null;
-    
-    setup();
-    }
-    /**
-    *    Set-up the auctioneer and the auction system.
-    */
-    int flag=0;
-    @Override
-    protected void setup() {
-        //first cycle
-        if (flag==0) {
-        flag++;
-        priceList= new HashMap<String,ArrayList<Integer>>();
-                            
-        // show a starting message
-        
-	System.out.println("The auctions starts!  Auctioneer "+getAID().getName()+" is ready.");
-
-	// Create the catalogue
-	catalogue = new Hashtable();
-
-	// Create and show the GUI window
-	myGUI = new AuctioneerGUI(this);
-	myGUI.showGui();
-       
-        // Add a Behaviour that schedules a request to bidders
-        addBehaviour(new ActionBid(this));
-        }
-        //following cycles
-        else {
-            addBehaviour(new ActionBid(this));
-        }
-    }
-
-    /**
-    *    Agent clean-up operations.
-    */
-    protected void takeDown() {
-	// Close the GUI
-	myGUI.dispose();
-
-	// Show a dismissal message
-	System.out.println("Auctioneer "+getAID().getName()+" terminating.");
-    }
-
-    /**
-    *   This is invoked by the GUI when the user adds a new item for sale.
-    */
-    public void updateCatalogue(final String title, final int price) {
-        addBehaviour(
-            new OneShotBehaviour() {
-                public void action() {
-                    ArrayList<Integer> value;
-                    catalogue.put(title, new Integer(price));
-                    System.out.println(title+" is inserted into catalogue. Initial Price = "+price+ ".");
-                    priceList= new HashMap<String,ArrayList<Integer>>();
-                    if(priceList.containsKey(title)){
-                        value = priceList.get(title);                                              
-                    }
-                    else{
-                        value = new ArrayList<>();
-                    }
-                        
-                    priceList.put(title, value);
-
-                }                
-            }             
-        );
-        addBehaviour(new ActionBid(this));
-    }
-
-    /**
-    *   This is invoked to delete item.
-    */
-    public Integer removeItemFromCatalogue(final String title) {
-        Integer price = null;
-        price = (Integer) catalogue.get(title);
-	addBehaviour(
-            new OneShotBehaviour() {
-                public void action() {
-                    catalogue.remove(title);
-                }
-            }
-        );
-        priceList.remove(title);
-        return price;
-    }
-
-    /**
-    *    It returns true if the catalogue is empty.
-    */
-    public boolean isCatalogueEmpty() {
-        return catalogue.isEmpty();
-    }
-
-    /**
-    *    It returns the name of the first item.
-    */
-    public String getFirstItemName() {
-        return (String)catalogue.keySet().toArray()[0];
-    }
-    
-    /**
-    *   It returns the initial price of a specific item.
-    */
-    public int getItemInitialPrice(final String title) {
-        Integer price = (Integer) catalogue.get(title);
-        if (price != null) {
-            return (int)price;
-        }
-        else {
-            return 0;
-        }
-    }
-
-}
-
-/**
- *  Add a Behaviour that schedules a request to bidders.
-*/
-class ActionBid extends Behaviour {
-
-    private Auctioneer myAgent;
-
-    private String currentItemName;
-
-    public ActionBid(Auctioneer agent) {
-        super(agent);
-        myAgent = agent;
-    }
-
-    @Override
-    public void action(){
-        
-        // If there is any item to sell
-        if (!myAgent.isCatalogueEmpty()) {
-
-                if (myAgent.p != null) myAgent.removeBehaviour(myAgent.p);
-                if (myAgent.q != null) myAgent.removeBehaviour(myAgent.q);
-                if (myAgent.r != null) myAgent.removeBehaviour(myAgent.r);
-                if (myAgent.s != null) myAgent.removeBehaviour(myAgent.s);
-                
-                if (myAgent.previousPrice==0)
-                    currentItemName = myAgent.getFirstItemName();
-                else
-                    currentItemName = myAgent.getFirstItemName();  
-                System.out.println("Starting auction for item " + currentItemName+ ".");
-                System.out.println("Waiting for bidders...");
-
-                // Find Bidder
-                myAgent.p = new FindBidder(myAgent);
-                myAgent.addBehaviour(myAgent.p);
-
-                // Send CFP to all bidders
-                myAgent.q = new SendCFP(myAgent, currentItemName, myAgent.getItemInitialPrice(currentItemName), myAgent.previousPrice);
-                myAgent.addBehaviour(myAgent.q);
-
-                // Receive all proposals/refusals from bidders and find the highest bidder
-                myAgent.r = new ReceiveBids(myAgent);
-                myAgent.addBehaviour(myAgent.r);
-
-                myAgent.s = new AnnounceWinner(myAgent, currentItemName);
-                myAgent.addBehaviour(myAgent.s);
-
-        }        
-        else {
-            System.out.println("Add an item before we can commence auctions.");          
-        }
-    }
-
-    @Override
-    public boolean done() {
-        return true;
-    }
-}
-/**
- *  It finds the bidders if any. 
-*/
-class FindBidder extends Behaviour {
-
-    private Auctioneer myAgent;
-
-    private boolean noBidder = false;
-    private boolean oneBidder = false;
-
-    public FindBidder(Auctioneer agent) {
-        super(agent);
-        myAgent = agent;
-    }
-    
-    public void action() {
-        
-        if (!myAgent.biddersFound) {
-
-            // Update the list of bidders
-            DFAgentDescription template = new DFAgentDescription();
-            ServiceDescription sd = new ServiceDescription();
-            sd.setType("english-auction");
-            template.addServices(sd);
-            try {
-                DFAgentDescription[] result = DFService.search(myAgent, template); 
-                if (result.length > 0) {
-                    System.out.println("Found the following " + result.length +" bidders:");
-                    myAgent.bidders = new AID[result.length];
-                    for (int i = 0; i < result.length; ++i) {
-                        myAgent.bidders[i] = result[i].getName();
-                        System.out.println(myAgent.bidders[i].getName());
-                    }
-                    myAgent.biddersFound = true;                    
-                }
-                myAgent.biddersCount = myAgent.bidders.length;
-            }
-            catch (FIPAException fe) {
-                fe.printStackTrace();
-            }
-
-        }
-    }
-
-    public boolean done() {
-        return myAgent.biddersFound;
-    }
-}
-
-/**
-*   Send CFP to all bidders.
-*/
-class SendCFP extends Behaviour {
-
-    private Auctioneer myAgent;
-    private String itemName;
-    private int itemInitialPrice;
-    private int previousPrice;
-
-    public SendCFP(Auctioneer agent, String itemName, int itemInitialPrice, int previousPrice) {
-        super(agent);
-        myAgent = agent;
-        this.itemName = itemName;
-        this.itemInitialPrice = itemInitialPrice;
-        this.previousPrice = previousPrice;
-    }
-    
-    public void action() {
-        
-        if (!myAgent.CFPSent && myAgent.biddersFound) {
-
-            // Send the cfp to all bidders
-            System.out.println("Sending CFP to all bidders..");
-            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
-            for (int i = 0; i < myAgent.bidders.length; ++i) {
-                cfp.addReceiver(myAgent.bidders[i]);
-            } 
-            cfp.setContent(this.itemName + "," + this.itemInitialPrice + "," + this.previousPrice);
-            cfp.setConversationId("english-bid");
-            cfp.setReplyWith("cfp"+System.currentTimeMillis()); // Unique value
-            myAgent.send(cfp);
-
-            // Prepare message template
-            myAgent.mt = MessageTemplate.and(MessageTemplate.MatchConversationId("english-bid"),
-                                             MessageTemplate.MatchInReplyTo(cfp.getReplyWith()));
-        
-            myAgent.CFPSent = true;
-
-        }
-    }
-
-    public boolean done() {
-        return myAgent.CFPSent;
-    }
-}
-
-/**
-*   Receive all proposals/refusals from bidders and find the highest bidder.
-*/
-class ReceiveBids extends Behaviour {
- 
-    private Auctioneer myAgent;
-    private ArrayList<Integer> value ;
-    private int repliesCnt = 0; // The counter of replies from seller agents
-    private boolean receiveFlag = false;
-    private int count=0;
-
-    public ReceiveBids(Auctioneer agent) {
-        super(agent);
-        myAgent = agent;
-    }
-    
-    public void action() {
-        
-        if (myAgent.CFPSent) {
-
-            // Receive all proposals/refusals from seller agents
-            ACLMessage msg = myAgent.receive(myAgent.mt);
-            if (msg != null) {
-                // Bid received
-                if (msg.getPerformative() == ACLMessage.PROPOSE) {
-                    
-                    // This is an offer 
-                    int price = Integer.parseInt(msg.getContent());
-                    value = myAgent.priceList.get(myAgent.getFirstItemName());
-                    if (price >= myAgent.getItemInitialPrice(myAgent.getFirstItemName())){
-                        //add the bid in the priceList
-                        value.add(price);
-                        myAgent.priceList.put(myAgent.getFirstItemName(), value);
-                    }
-                        
-                    if (myAgent.bestBidder == null || price > myAgent.bestPrice) {
-                        // This is the best offer until now
-                        myAgent.bestPrice = price;
-                        //setBestPrice(myAgent.bestPrice);
-                        myAgent.bestBidder = msg.getSender();
-                        receiveFlag=true;
-                    }
-
-                    // Inform the bidder that the bid has been received
-                    ACLMessage reply = msg.createReply();
-                    reply.setPerformative(ACLMessage.INFORM);
-                    reply.setContent("Your bid has been received!");
-                    myAgent.send(reply);           
-                }
-
-                if (msg.getPerformative() == ACLMessage.REFUSE){
-                    System.out.println(msg.getSender().getLocalName() + " is not joining this auction.");
-                    myAgent.biddersCount--;
-                    receiveFlag=true;
-                }
-                
-                if (msg.getPerformative() == ACLMessage.CANCEL){
-                    System.out.println(msg.getSender().getLocalName() + " has not enough budget to join this auction.");
-                    myAgent.biddersCount--;
-                    count++;
-                }
-
-                repliesCnt++;
-            }
-            else {
-                block();
-            }
-        
-            if (repliesCnt >= myAgent.bidders.length) {
-                // We have received all bids
-                myAgent.bidsReceived = true;
-            }
-        }
-        
-    }
-    
-    public boolean getReceiveFlag() {
-        return receiveFlag;
-    }
-    
-    public int getCount() {
-        return count;
-    }
-    
-    public void setReceiveFlag(boolean f) {
-        receiveFlag = f;
-    }
-    
-    public boolean done() {
-        return myAgent.bidsReceived;
-    }
-    
-}
-
-/**
- * It announces the winner and updates the catalogue.
- * Send the request order to the bidder that provided the best offer.
- * @condition: if there is any winner
- */
-class AnnounceWinner extends Behaviour {
-    private ACLMessage msgCFP;
-     
-    private Auctioneer myAgent;
-
-    private String itemName;
-
-    private boolean isDone = false;
-    
-    public AnnounceWinner(Auctioneer agent, String itemName) {
-        this.itemName = itemName;
-        myAgent = agent;
-    }
-    
-    public void action() {
-        
-        if (myAgent.bidsReceived) {
-            int length = myAgent.bidders.length-1;
-            boolean equal = false;
-            if (myAgent.previousBidder != null && myAgent.bestBidder != null)
-                equal = myAgent.previousBidder.equals(myAgent.bestBidder);
-            
-            //if there is no new price for the item 
-            //or there is no new bidder (previousBidder is the same with bestBidder)
-            //or there is only one who can buy it
-            if ( (myAgent.bestPrice==0 && myAgent.previousPrice!=0) 
-                    || (myAgent.biddersCount==1 && equal) 
-                    || (myAgent.r.getCount()==length && myAgent.bestPrice!=0)){
-
-                ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-                order.addReceiver(myAgent.bestBidder);
-                ArrayList<Integer> value = myAgent.priceList.get(this.itemName);
-                 
-                if (myAgent.previousPrice==0)
-                    order.setContent(this.itemName + "," + myAgent.bestPrice);
-                else
-                    order.setContent(this.itemName + "," + myAgent.previousPrice);
-                
-                order.setConversationId("english-bid");
-                order.setReplyWith("order"+System.currentTimeMillis());
-
-                System.out.println("Announcing Winner for " + this.itemName + " !");
-
-                Integer price = (Integer) myAgent.removeItemFromCatalogue(this.itemName);
-                if (price != null) {
-                    System.out.println(itemName+" sold to agent "+ myAgent.bestBidder.getName() + " !");                
-                }
-                else {
-                    // The requested item has been sold to another buyer somehow
-                    order.setPerformative(ACLMessage.FAILURE);
-                    order.setContent("not-available");
-                }
-                myAgent.send(order);
-
-                // Re-Initialize all conditions
-                myAgent.biddersFound = false;
-                myAgent.CFPSent = false;
-                myAgent.bidsReceived = false;                
-                myAgent.bestPrice = 0;
-                myAgent.bestBidder = null;
-                myAgent.previousPrice = 0;
-                myAgent.priceList = null;
-                myAgent.r.setReceiveFlag(false);
-                myAgent.previousBidder = null;
-                myAgent.bestBidder = null;
-                System.out.println("Add an item before we can commence auctions.");
-            }
-            
-            //if all bidders have not enough budget for the auction
-            else if (myAgent.r.getCount()==myAgent.bidders.length) {
-
-                ArrayList<Integer> value = myAgent.priceList.get(this.itemName);
-                Integer price = (Integer) myAgent.removeItemFromCatalogue(this.itemName);
-                if (price != null) {
-                    System.out.println(itemName+" cannot be sold to any agent !");                
-                }
-
-                // Re-Initialize all conditions for next item
-                myAgent.biddersFound = false;
-                myAgent.CFPSent = false;
-                myAgent.bidsReceived = false;                
-                myAgent.bestPrice = 0;
-                myAgent.bestBidder = null;
-                myAgent.previousPrice = 0;
-                myAgent.priceList = null;
-                myAgent.r.setReceiveFlag(false);
-                myAgent.bestBidder = null;
-                myAgent.previousBidder = null;
-                System.out.println("Add an item before we can commence auctions.");
-            }
-            else {
-                myAgent.r.setReceiveFlag(false);
-                System.out.println("There is no winner yet.. Next cycle..");
-                myAgent.previousPrice = myAgent.bestPrice;
-                myAgent.previousBidder = myAgent.bestBidder;
-                myAgent.setAuctioneer(myAgent.priceList,myAgent.previousPrice,myAgent.previousBidder);
-
-            }
-            isDone = true;
-        }
-    }
-
-    public boolean done() {
-        return isDone;
-    }
+package english;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.*;
+
+/**
+ * 
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+
+/**
+ * This class creates a JADE agent who performs an auctioneer of an english auction.
+ */
+public class Auctioneer extends Agent {
+
+    // The catalogue of items for sale -> a queue of items that can also find the price of an item by its name
+    private Catalogue catalogue;
+    
+    // The catalogue of bids for each item
+    public BidLedger priceList ;
+	
+    // The GUI through which the user can add items in the catalogue
+    private AuctioneerGUI myGUI;
+
+    // The lots that are auctioned right now -> it maps the name of an item to its lot
+    public HashMap<String,Lot> openLots;
+
+    // The number of lots that can be auctioned at the same time (argument "lots")
+    public int maxOpenLots = 1;
+
+    // The longest time (ms) to wait for the bids of a round, so that a silent bidder cannot stall a lot (argument "bid-timeout")
+    public long bidTimeout = 5000;
+
+    // The most rounds in a row without any bid before a lot closes unsold (argument "empty-rounds"),
+    // so a lot that nobody bids for takes at most this many bid timeouts
+    public int maxEmptyRounds = 3;
+
+    // How the bids are acknowledged: for every bid, once per round or never (argument "acks": "bid", "summary" or "none")
+    public int ackMode = BidAcks.PER_BID;
+
+    // The increment of proxy bidding (argument "proxy"): the bidders send their maximum once
+    // and the auctioneer raises the price for them, so a lot closes in one round. With 0 the lots run in rounds of bids.
+    public int proxyIncrement = 0;
+
+    // The bidders that are registered in the yellow pages, updated by the DF
+    public BidderDirectory directory;
+
+    // The counter of the lots that have been started, used for unique conversation ids
+    private int lotsStarted = 0;
+
+    // The events of the auctions, for a program that watches them (an argument object)
+    public AuctionEvents events = AuctionEvents.NONE;
+
+    // The port of this machine where the catalogue loader accepts items (argument "load-port")
+    private ServerSocket loaderPort = null;
+
+    // The metrics of the auctions, that JMX shows
+    public AuctioneerMetrics metrics;
+
+    // The journal of the catalogue, the bids and the sales, to start again after a crash (argument "journal")
+    public BidJournal journal = null;
+
+    // The snapshots of the journal, taken in the background (argument "snapshot-interval")
+    private Snapshots snapshots = null;
+
+    // The timers of all the lots, like the bid timeouts of their rounds, on one clock (argument "timer-tick", ms)
+    public TimerWheel timers;
+
+    /**
+    *    Set-up the auctioneer and the auction system.
+    */
+    @Override
+    protected void setup() {
+        priceList= new BidLedger();
+        openLots = new HashMap<String,Lot>();
+
+        // Read the arguments of the agent
+        maxOpenLots = Math.max(1, Integer.parseInt(getArgument("lots", String.valueOf(maxOpenLots))));
+        bidTimeout = Long.parseLong(getArgument("bid-timeout", String.valueOf(bidTimeout)));
+        maxEmptyRounds = Math.max(1, Integer.parseInt(getArgument("empty-rounds", String.valueOf(maxEmptyRounds))));
+        ackMode = BidAcks.parseMode(getArgument("acks", "bid"));
+        String proxy = getArgument("proxy", "0");
+        proxyIncrement = proxy.equals("true") ? 1 : Math.max(0, Integer.parseInt(proxy));
+        if (getArgument("log", null) != null) {
+            AuctionLog.setLevel(AuctionLog.parseLevel(getArgument("log", null)));
+        }
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof AuctionEvents) {
+                    events = (AuctionEvents) arg;
+                }
+            }
+        }
+                            
+        // show a starting message
+	AuctionLog.info("The auctions starts!  Auctioneer {} is ready.", getAID().getName());
+        AuctionLog.info("Up to {} lots will be auctioned at the same time.", maxOpenLots);
+        if (proxyIncrement > 0) {
+            AuctionLog.info("Proxy bidding with an increment of {}.", proxyIncrement);
+        }
+
+	// Create the catalogue
+	catalogue = new Catalogue();
+
+        // Rebuild the catalogue and the bids from the last snapshot and the journal, and keep appending to it
+        if (getArgument("journal", null) != null) {
+            openJournal(getArgument("journal", null), Long.parseLong(getArgument("journal-sync", "10")),
+                    Long.parseLong(getArgument("snapshot-interval", "60000")));
+        }
+
+	// Create and show the GUI window, unless the auctioneer runs without one (argument "headless")
+	if (getArgument("headless", null) == null) {
+	    myGUI = new AuctioneerGUI(this);
+	    myGUI.showGui();
+	}
+
+        // Show the metrics of the auctions to JMX
+        metrics = AuctioneerMetrics.register(this);
+
+        // One clock for the timers of all the lots
+        timers = new TimerWheel(this, Long.parseLong(getArgument("timer-tick", "10")));
+        addBehaviour(timers);
+
+        // Receive the items that are sent by other agents, or by the program that started the agent
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ReceiveItems(this));
+
+        // Load the items of a file and of the connections to a local port, without the GUI
+        try {
+            if (getArgument("load", null) != null) {
+                CatalogueLoader.loadFile(this, getArgument("load", null));
+            }
+            if (getArgument("load-port", null) != null) {
+                loaderPort = CatalogueLoader.listen(this, Integer.parseInt(getArgument("load-port", null)));
+            }
+        }
+        catch (IOException e) {
+            AuctionLog.warn("The catalogue loader cannot start: {}", e.getMessage());
+        }
+       
+        // Subscribe to the yellow pages, to keep the list of bidders up to date
+        directory = new BidderDirectory(this, "english-auction");
+        addBehaviour(directory);
+
+        // Add a Behaviour that schedules a request to bidders
+        addBehaviour(new ActionBid(this));
+    }
+
+    // Restore the last snapshot, open the journal and apply its records after the snapshot to the catalogue and the bids
+    private void openJournal(String path, long syncMillis, long snapshotMillis) {
+        try {
+            BidJournal.Records records = new BidJournal.Records() {
+                public void item(String name, int price) {
+                    catalogue.put(name, price);
+                    priceList.open(name);
+                }
+                public void bid(String name, int price, String bidder) {
+                    priceList.open(name).add(price);
+                }
+                public void sold(String name, int price, String winner) {
+                    catalogue.remove(name);
+                    priceList.remove(name);
+                }
+                public void removed(String name) {
+                    catalogue.remove(name);
+                    priceList.remove(name);
+                }
+            };
+            Snapshots snapshot = Snapshots.load(path + ".snapshot");
+            if (snapshot.getPosition() > new File(path).length()) {
+                AuctionLog.warn("The snapshot {} is ahead of its journal, the whole journal is read instead.", path + ".snapshot");
+                snapshot = new Snapshots(path + ".snapshot");
+            }
+            snapshot.restore(records);
+            journal = BidJournal.open(path, syncMillis, snapshot.getPosition(), records);
+            AuctionLog.info("Recovered {} items from the snapshot and {} records from the journal {}, {} items are in the catalogue.",
+                    snapshot.size(), journal.getRecovered(), path, catalogue.size());
+            if (snapshotMillis > 0) {
+                snapshots = snapshot;
+                snapshots.start(journal, snapshotMillis);
+            }
+        }
+        catch (IOException e) {
+            AuctionLog.error("The journal {} cannot be opened: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    *   An argument with no value gives "true".
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *    Agent clean-up operations.
+    */
+    protected void takeDown() {
+        // Stop the catalogue loader
+        if (loaderPort != null) {
+            try {
+                loaderPort.close();
+            }
+            catch (IOException e) {
+            }
+        }
+
+        // Stop the notifications of the yellow pages
+        directory.cancel(getDefaultDF(), true);
+
+        metrics.unregister();
+
+        // Take a last snapshot and force the last records of the journal to the disk
+        if (snapshots != null) {
+            snapshots.stop(journal);
+        }
+        if (journal != null) {
+            journal.close();
+        }
+
+	// Close the GUI
+	if (myGUI != null) {
+	    myGUI.dispose();
+	}
+
+	// Show a dismissal message
+	AuctionLog.info("Auctioneer {} terminating.", getAID().getName());
+    }
+
+    /**
+    *   This is invoked by the GUI when the user adds a new item for sale.
+    */
+    public void updateCatalogue(final String title, final int price) {
+        addBehaviour(
+            new OneShotBehaviour() {
+                public void action() {
+                    catalogue.put(title, price);
+                    if (journal != null) {
+                        journal.item(title, price);
+                    }
+                    AuctionLog.info("{} is inserted into catalogue. Initial Price = {}.", title, price);
+                    priceList.open(title);
+                }                
+            }             
+        );
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   This is invoked by the catalogue loader with a chunk of items.
+    *   The items are inserted at once and the next lot is scheduled once for all of them.
+    */
+    public void addItems(CatalogueLoader.Chunk chunk) {
+        for (int i = 0; i < chunk.size; i++) {
+            catalogue.put(chunk.names[i], chunk.prices[i]);
+            if (journal != null) {
+                journal.item(chunk.names[i], chunk.prices[i]);
+            }
+        }
+        AuctionLog.info("{} items are inserted into catalogue.", chunk.size);
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   This is invoked to delete item.
+    */
+    public Integer removeItemFromCatalogue(final String title) {
+        Integer price = null;
+        // It is called by the behaviours of the agent, so the item is removed at once
+        // and it cannot be picked again by a lot that opens in the meantime
+        Catalogue.Item item = catalogue.remove(title);
+        if (item != null) {
+            price = item.price;
+        }
+        priceList.remove(title);
+        return price;
+    }
+
+    /**
+    *    It returns true if the catalogue is empty.
+    */
+    public boolean isCatalogueEmpty() {
+        return catalogue.isEmpty();
+    }
+
+    /**
+    *    It returns the name of the first item.
+    */
+    public String getFirstItemName() {
+        Catalogue.Item item = catalogue.peek();
+        return item != null ? item.name : null;
+    }
+
+    /**
+    *    It takes the next item that is not auctioned yet out of the queue and returns its name, or null if there is none.
+    */
+    public String getNextItemName() {
+        Catalogue.Item item = catalogue.poll();
+        return item != null ? item.name : null;
+    }
+    
+    /**
+    *   It returns the initial price of a specific item.
+    */
+    public int getItemInitialPrice(final String title) {
+        return catalogue.price(title);
+    }
+
+    /**
+    *   It opens a new lot for an item of the catalogue and starts its first round.
+    */
+    public Lot openLot(final String title) {
+        lotsStarted++;
+        Lot lot = new Lot(title, getItemInitialPrice(title), "english-bid-" + lotsStarted, priceList.open(title));
+        openLots.put(title, lot);
+        metrics.lotOpened();
+        addBehaviour(new RunLot(this, lot));
+        return lot;
+    }
+
+    /**
+    *   It closes a lot that is sold or cannot be sold, and starts the next items if any.
+    */
+    public void closeLot(Lot lot) {
+        openLots.remove(lot.itemName);
+        addBehaviour(new ActionBid(this));
+    }
+
+}
+
+/**
+ *  It receives the items that other agents send for sale, and adds them to the catalogue.
+ *  An item comes as a REQUEST of the "catalogue" conversation, or as a Catalogue.Item object (O2A)
+ *  from the program that started the auctioneer, and the items of the catalogue loader come in chunks (O2A).
+*/
+class ReceiveItems extends CyclicBehaviour {
+
+    private Auctioneer myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                                                     MessageTemplate.MatchConversationId("catalogue"));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveItems(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        boolean received = false;
+
+        Object o;
+        while ((o = myAgent.getO2AObject()) != null) {
+            if (o instanceof Catalogue.Item) {
+                Catalogue.Item item = (Catalogue.Item) o;
+                myAgent.updateCatalogue(item.name, item.price);
+            }
+            else if (o instanceof CatalogueLoader.Chunk) {
+                CatalogueLoader.Chunk chunk = (CatalogueLoader.Chunk) o;
+                myAgent.addItems(chunk);
+                chunk.inserted();
+            }
+            received = true;
+        }
+
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            try {
+                AuctionCodec.Content item = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                if (item.type == AuctionCodec.ITEM) {
+                    myAgent.updateCatalogue(item.itemName, item.initialPrice);
+                }
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The item of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            }
+            received = true;
+        }
+
+        if (!received) {
+            block();
+        }
+    }
+}
+
+/**
+ *  Add a Behaviour that schedules a request to bidders.
+ *  It opens lots until the maximum number of lots run at the same time.
+*/
+class ActionBid extends Behaviour {
+
+    private Auctioneer myAgent;
+
+    private String currentItemName;
+
+    public ActionBid(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    @Override
+    public void action(){
+        
+        // If there is any item to sell
+        if (!myAgent.isCatalogueEmpty()) {
+
+                while (myAgent.openLots.size() < myAgent.maxOpenLots
+                        && (currentItemName = myAgent.getNextItemName()) != null) {
+
+                    AuctionLog.info("Starting auction for item {}.", currentItemName);
+                    AuctionLog.debug("Waiting for bidders...");
+
+                    myAgent.openLot(currentItemName);
+                }
+
+        }        
+        else if (myAgent.openLots.isEmpty()) {
+            AuctionLog.info("Add an item before we can commence auctions.");          
+        }
+    }
+
+    @Override
+    public boolean done() {
+        return true;
+    }
+}
+/**
+ *  The state machine of a lot.
+ *  Every round finds the bidders, sends the CFP, receives the bids and announces the winner or starts the next round.
+ *  The behaviours of the states are created once per lot and are reset in place from round to round.
+*/
+class RunLot extends FSMBehaviour {
+
+    // The states of a round
+    private static final String FIND_BIDDER = "find-bidder";
+    private static final String SEND_CFP = "send-cfp";
+    private static final String RECEIVE_BIDS = "receive-bids";
+    private static final String ANNOUNCE_WINNER = "announce-winner";
+    private static final String CLOSE_LOT = "close-lot";
+
+    // The states that are reset when a new round starts
+    private static final String[] ROUND_STATES = { FIND_BIDDER, SEND_CFP, RECEIVE_BIDS, ANNOUNCE_WINNER };
+
+    public RunLot(final Auctioneer agent, final Lot lot) {
+        super(agent);
+
+        ReceiveBids receiveBids = new ReceiveBids(agent, lot);
+
+        registerFirstState(new FindBidder(agent, lot), FIND_BIDDER);
+        registerState(new SendCFP(agent, lot), SEND_CFP);
+        registerState(receiveBids, RECEIVE_BIDS);
+        registerState(new AnnounceWinner(agent, lot, receiveBids), ANNOUNCE_WINNER);
+        registerLastState(new OneShotBehaviour(agent) {
+            public void action() {
+                // The lot is over, continue with the next items
+                agent.closeLot(lot);
+            }
+        }, CLOSE_LOT);
+
+        registerDefaultTransition(FIND_BIDDER, SEND_CFP);
+        registerDefaultTransition(SEND_CFP, RECEIVE_BIDS);
+        registerDefaultTransition(RECEIVE_BIDS, ANNOUNCE_WINNER);
+        registerTransition(ANNOUNCE_WINNER, FIND_BIDDER, AnnounceWinner.NEXT_ROUND, ROUND_STATES);
+        registerTransition(ANNOUNCE_WINNER, CLOSE_LOT, AnnounceWinner.LOT_CLOSED);
+    }
+}
+
+/**
+ *  It finds the bidders if any. 
+ *  The bidders are read from the directory of the auctioneer, so no search of the DF is needed.
+*/
+class FindBidder extends Behaviour {
+
+    private Auctioneer myAgent;
+
+    private Lot lot;
+
+    // The time (ns) when the lookup of this round started
+    private long startedAt = 0;
+
+    public FindBidder(Auctioneer agent, Lot lot) {
+        super(agent);
+        myAgent = agent;
+        this.lot = lot;
+    }
+    
+    public void action() {
+        
+        if (!lot.biddersFound) {
+
+            if (startedAt == 0) {
+                startedAt = System.nanoTime();
+            }
+
+            // Take the list of bidders from the directory, that the DF keeps up to date
+            if (!myAgent.directory.isEmpty()) {
+                lot.bidders = myAgent.directory.getBidders();
+                if (AuctionLog.isDebugEnabled()) {
+                    AuctionLog.debug("Found {} bidders for {}.", lot.bidders.length, lot.itemName);
+                }
+                lot.biddersFound = true;                    
+                lot.biddersCount = lot.bidders.length;
+                myAgent.metrics.dfLookup(System.nanoTime() - startedAt);
+            }
+            else {
+                // Wait until a bidder registers
+                myAgent.directory.waitForBidders(this);
+                block();
+            }
+
+        }
+    }
+
+    public boolean done() {
+        return lot.biddersFound;
+    }
+
+    public void reset() {
+        super.reset();
+        startedAt = 0;
+    }
+}
+
+/**
+*   Send CFP to all bidders.
+*/
+class SendCFP extends Behaviour {
+
+    private Auctioneer myAgent;
+    private Lot lot;
+
+    public SendCFP(Auctioneer agent, Lot lot) {
+        super(agent);
+        myAgent = agent;
+        this.lot = lot;
+    }
+    
+    public void action() {
+        
+        if (!lot.CFPSent && lot.biddersFound) {
+
+            // Send the cfp to all bidders
+            AuctionLog.debug("Sending CFP to all bidders..");
+            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+            for (int i = 0; i < lot.bidders.length; ++i) {
+                cfp.addReceiver(lot.bidders[i]);
+            } 
+            if (myAgent.proxyIncrement > 0) {
+                // Ask for the maximum of every bidder, once
+                cfp.setByteSequenceContent(AuctionCodec.encodeProxyCfp(lot.itemName, lot.initialPrice, myAgent.proxyIncrement));
+            }
+            else {
+                cfp.setByteSequenceContent(AuctionCodec.encodeCfp(lot.itemName, lot.initialPrice, lot.previousPrice));
+            }
+            cfp.setConversationId(lot.conversationId);
+            cfp.setReplyWith("cfp"+lot.round+"-"+System.currentTimeMillis()); // Unique value
+            myAgent.send(cfp);
+            myAgent.metrics.cfpSent(lot.bidders.length);
+            if (lot.round == 0) {
+                lot.startedAt = System.nanoTime();
+                myAgent.events.lotStarted(lot.itemName);
+            }
+
+            // Prepare message template
+            lot.mt = MessageTemplate.and(MessageTemplate.MatchConversationId(lot.conversationId),
+                                             MessageTemplate.MatchInReplyTo(cfp.getReplyWith()));
+        
+            lot.CFPSent = true;
+
+        }
+    }
+
+    public boolean done() {
+        return lot.CFPSent;
+    }
+}
+
+/**
+*   Receive all proposals/refusals from bidders and find the highest bidder.
+*   The round closes when all bidders have replied or when the bid timeout is over;
+*   the bidders that did not reply in time are reported and take no part in the round.
+*   The bid timeout is a timer of the auctioneer, that is cancelled when all the bidders reply in time.
+*/
+class ReceiveBids extends Behaviour {
+ 
+    private Auctioneer myAgent;
+    private Lot lot;
+    private int repliesCnt = 0; // The counter of replies from seller agents
+    private boolean receiveFlag = false;
+    private int count=0;
+    private HashSet<AID> replied = new HashSet<>(); // The bidders that have replied
+    private TimerWheel.Timer deadline = null; // The timer that closes the round, even if some bidders have not replied
+    private boolean late = false; // It is true when the bid timeout is over
+    private AuctionCodec.Content content = new AuctionCodec.Content(); // The decoded content of the bids
+    private BidAcks acks; // The acknowledgements of the bids
+
+    public ReceiveBids(Auctioneer agent, Lot lot) {
+        super(agent);
+        myAgent = agent;
+        this.lot = lot;
+        this.acks = new BidAcks(agent, agent.ackMode);
+    }
+    
+    public void action() {
+        
+        if (lot.CFPSent) {
+
+            if (deadline == null) {
+                deadline = myAgent.timers.schedule(myAgent.bidTimeout, new Runnable() {
+                    public void run() {
+                        late = true;
+                        restart();
+                    }
+                });
+            }
+
+            // Receive all proposals/refusals from seller agents
+            ACLMessage msg = myAgent.receive(lot.mt);
+            if (msg != null) {
+                if (!replied.add(msg.getSender())) {
+                    // A bidder answers once per round
+                    return;
+                }
+
+                // Bid received
+                if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                    
+                    // This is an offer 
+                    int price = decodeBid(msg);
+                    if (price >= 0) {
+                        myAgent.metrics.bidReceived();
+                        myAgent.events.bidReceived(lot.itemName, price);
+                    }
+                    boolean kept = price >= 0 && price >= lot.initialPrice;
+                    if (kept){
+                        //add the bid in the bids of the lot
+                        lot.bids.add(price);
+                        if (myAgent.journal != null) {
+                            myAgent.journal.bid(lot.itemName, price, msg.getSender().getName());
+                        }
+                    }
+                        
+                    if (myAgent.proxyIncrement > 0) {
+                        // Only the maxima from the initial price on take part, and the second one sets the price
+                        if (kept) {
+                            lot.offerMaximum(price, msg.getSender());
+                        }
+                        receiveFlag=true;
+                    }
+                    else if (kept && (lot.bestBidder == null || price > lot.bestPrice)) {
+                        // This is the best offer until now, from the initial price on
+                        lot.bestPrice = price;
+                        lot.bestBidder = msg.getSender();
+                        receiveFlag=true;
+                    }
+
+                    // Inform the bidder that the bid has been received
+                    acks.ack(msg, kept ? 1 : 0, kept ? 0 : 1);
+                }
+
+                if (msg.getPerformative() == ACLMessage.REFUSE){
+                    AuctionLog.debug("{} is not joining this auction.", msg.getSender().getLocalName());
+                    lot.biddersCount--;
+                    receiveFlag=true;
+                }
+                
+                if (msg.getPerformative() == ACLMessage.CANCEL){
+                    AuctionLog.debug("{} has not enough budget to join this auction.", msg.getSender().getLocalName());
+                    lot.biddersCount--;
+                    count++;
+                }
+
+                repliesCnt++;
+            }
+            else {
+                if (!late) {
+                    // Wait for the next reply, or until the deadline
+                    block();
+                }
+                else {
+                    closeWithMissingBidders();
+                }
+            }
+        
+            if (repliesCnt >= lot.bidders.length) {
+                // We have received all bids
+                lot.bidsReceived = true;
+            }
+
+            if (lot.bidsReceived) {
+                // Send the acknowledgements that wait for the end of the round
+                acks.flush();
+                myAgent.timers.cancel(deadline);
+            }
+        }
+        
+    }
+
+    // It returns the price of a bid, or -1 if the content cannot be read
+    private int decodeBid(ACLMessage msg) {
+        try {
+            return AuctionCodec.decode(msg.getByteSequenceContent(), content).price;
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The bid of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return -1;
+        }
+    }
+
+    // Close the round with the bids received so far
+    // The bidders that did not reply do not join this round, like a refusal
+    private void closeWithMissingBidders() {
+        ArrayList<String> missing = getMissingBidders();
+        AuctionLog.warn("No reply from {} for {} in time. The round closes without them.", missing, lot.itemName);
+        lot.biddersCount -= missing.size();
+        lot.bidsReceived = true;
+    }
+
+    /**
+    *   It returns the names of the bidders that have not replied in this round.
+    */
+    public ArrayList<String> getMissingBidders() {
+        ArrayList<String> missing = new ArrayList<>();
+        for (int i = 0; i < lot.bidders.length; ++i) {
+            if (!replied.contains(lot.bidders[i])) {
+                missing.add(lot.bidders[i].getLocalName());
+            }
+        }
+        return missing;
+    }
+    
+    public boolean getReceiveFlag() {
+        return receiveFlag;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public void setReceiveFlag(boolean f) {
+        receiveFlag = f;
+    }
+    
+    public boolean done() {
+        return lot.bidsReceived;
+    }
+
+    public void reset() {
+        super.reset();
+        repliesCnt = 0;
+        receiveFlag = false;
+        count = 0;
+        replied.clear();
+        myAgent.timers.cancel(deadline);
+        deadline = null;
+        late = false;
+    }
+    
+}
+
+/**
+ * It announces the winner and updates the catalogue.
+ * Send the request order to the bidder that provided the best offer.
+ * @condition: if there is any winner
+ */
+class AnnounceWinner extends Behaviour {
+     
+    private Auctioneer myAgent;
+
+    private Lot lot;
+
+    // The behaviour that receives the bids of the rounds of the lot
+    private ReceiveBids receiveBids;
+
+    private String itemName;
+
+    // The results of a round
+    public static final int NEXT_ROUND = 0;
+    public static final int LOT_CLOSED = 1;
+
+    private boolean isDone = false;
+
+    private int result = NEXT_ROUND;
+    
+    public AnnounceWinner(Auctioneer agent, Lot lot, ReceiveBids receiveBids) {
+        super(agent);
+        myAgent = agent;
+        this.lot = lot;
+        this.receiveBids = receiveBids;
+        this.itemName = lot.itemName;
+    }
+    
+    public void action() {
+        
+        if (lot.bidsReceived) {
+            if (myAgent.proxyIncrement > 0) {
+                // All the maxima are known, so the lot closes in this round
+                closeProxyLot();
+                isDone = true;
+                return;
+            }
+
+            int length = lot.bidders.length-1;
+            boolean equal = false;
+            if (lot.previousBidder != null && lot.bestBidder != null)
+                equal = lot.previousBidder.equals(lot.bestBidder);
+            
+            //if there is no new price for the item 
+            //or there is no new bidder (previousBidder is the same with bestBidder)
+            //or there is only one who can buy it
+            if ( (lot.bestPrice==0 && lot.previousPrice!=0) 
+                    || (lot.biddersCount==1 && equal) 
+                    || (receiveBids.getCount()==length && lot.bestPrice!=0)){
+
+                ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+                order.addReceiver(lot.bestBidder);
+                 
+                if (lot.previousPrice==0)
+                    order.setByteSequenceContent(AuctionCodec.encodeOrder(this.itemName, lot.bestPrice));
+                else
+                    order.setByteSequenceContent(AuctionCodec.encodeOrder(this.itemName, lot.previousPrice));
+                
+                order.setConversationId(lot.conversationId);
+                order.setReplyWith("order"+System.currentTimeMillis());
+
+                AuctionLog.debug("Announcing Winner for {} !", this.itemName);
+
+                Integer price = myAgent.removeItemFromCatalogue(this.itemName);
+                if (price != null) {
+                    AuctionLog.info("{} sold to agent {} !", itemName, lot.bestBidder.getName());                
+                    if (myAgent.journal != null) {
+                        myAgent.journal.sold(itemName, lot.previousPrice == 0 ? lot.bestPrice : lot.previousPrice,
+                                             lot.bestBidder.getName());
+                    }
+                }
+                else {
+                    // The requested item has been sold to another buyer somehow
+                    order.setPerformative(ACLMessage.FAILURE);
+                    order.setContent("not-available");
+                }
+                myAgent.send(order);
+                myAgent.events.lotClosed(this.itemName, price != null);
+                myAgent.metrics.lotClosed(price != null, lot.round + 1, System.nanoTime() - lot.startedAt);
+
+                // The lot is over
+                receiveBids.setReceiveFlag(false);
+                result = LOT_CLOSED;
+            }
+            
+            //if all bidders have not enough budget for the auction
+            //or nobody has bid for the item in the last rounds
+            else if (receiveBids.getCount()==lot.bidders.length
+                    || (lot.bestBidder == null && lot.round + 1 >= myAgent.maxEmptyRounds)) {
+
+                Integer price = myAgent.removeItemFromCatalogue(this.itemName);
+                if (price != null) {
+                    AuctionLog.info("{} cannot be sold to any agent !", itemName);                
+                    if (myAgent.journal != null) {
+                        myAgent.journal.removed(itemName);
+                    }
+                }
+                myAgent.events.lotClosed(this.itemName, false);
+                myAgent.metrics.lotClosed(false, lot.round + 1, System.nanoTime() - lot.startedAt);
+
+                // The lot is over
+                receiveBids.setReceiveFlag(false);
+                result = LOT_CLOSED;
+            }
+            else {
+                receiveBids.setReceiveFlag(false);
+                AuctionLog.debug("There is no winner yet for {}.. Next cycle..", this.itemName);
+                lot.previousPrice = lot.bestPrice;
+                lot.previousBidder = lot.bestBidder;
+                lot.nextRound();
+                result = NEXT_ROUND;
+            }
+            isDone = true;
+        }
+    }
+
+    // Sell the item to the highest maximum, at the price that the ascending auction of the maxima would reach
+    private void closeProxyLot() {
+        result = LOT_CLOSED;
+        if (lot.bestBidder == null) {
+            if (myAgent.removeItemFromCatalogue(this.itemName) != null) {
+                AuctionLog.info("{} cannot be sold to any agent !", itemName);
+                if (myAgent.journal != null) {
+                    myAgent.journal.removed(itemName);
+                }
+            }
+            myAgent.events.lotClosed(this.itemName, false);
+            myAgent.metrics.lotClosed(false, lot.round + 1, System.nanoTime() - lot.startedAt);
+            return;
+        }
+
+        int salePrice = lot.proxyPrice(myAgent.proxyIncrement);
+        ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+        order.addReceiver(lot.bestBidder);
+        order.setByteSequenceContent(AuctionCodec.encodeOrder(this.itemName, salePrice));
+        order.setConversationId(lot.conversationId);
+        order.setReplyWith("order"+System.currentTimeMillis());
+
+        Integer price = myAgent.removeItemFromCatalogue(this.itemName);
+        if (price != null) {
+            AuctionLog.info("{} sold to agent {} for {} !", itemName, lot.bestBidder.getName(), salePrice);
+            if (myAgent.journal != null) {
+                myAgent.journal.sold(itemName, salePrice, lot.bestBidder.getName());
+            }
+        }
+        else {
+            // The requested item has been sold to another buyer somehow
+            order.setPerformative(ACLMessage.FAILURE);
+            order.setContent("not-available");
+        }
+        myAgent.send(order);
+        myAgent.events.lotClosed(this.itemName, price != null);
+        myAgent.metrics.lotClosed(price != null, lot.round + 1, System.nanoTime() - lot.startedAt);
+    }
+
+    public boolean done() {
+        return isDone;
+    }
+
+    public int onEnd() {
+        return result;
+    }
+
+    public void reset() {
+        super.reset();
+        isDone = false;
+        result = NEXT_ROUND;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package english;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The metrics of an auctioneer that JMX shows, under the name english:type=Auctioneer,name="local name".
+ * The times of the lots are in milliseconds and the times of the DF lookups in microseconds.
+ * A histogram is the counts of its buckets of powers of two: bucket i counts the values up to 2^i - 1.
+ */
+public interface AuctioneerMetricsMBean {
+
+    long getLotsOpen();
+
+    long getLotsSold();
+
+    long getLotsUnsold();
+
+    long getBidsReceived();
+
+    double getBidsPerSecond();
+
+    long getCfpsSent();
+
+    long getLastCfpFanOut();
+
+    double getMeanCfpFanOut();
+
+    long getMaxCfpFanOut();
+
+    long getDfLookups();
+
+    double getMeanDfLookupMicros();
+
+    long getMaxDfLookupMicros();
+
+    double getMeanRoundsPerLot();
+
+    long getMaxRoundsPerLot();
+
+    long[] getRoundsPerLotHistogram();
+
+    double getMeanLotCloseMillis();
+
+    double getLotCloseP50Millis();
+
+    double getLotCloseP90Millis();
+
+    double getLotCloseP99Millis();
+
+    double getMaxLotCloseMillis();
+
+    long[] getLotCloseHistogramMicros();
+}
@@ -0,0 +1,90 @@
+package english;
+
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The acknowledgements that the auctioneer sends for the bids of a round.
+ * An acknowledgement is an INFORM with the status of the bids and the number of bids that were kept and not kept.
+ * It can be sent for every bid as soon as it arrives, once for the round, or never (argument "acks").
+ * Once for the round, the bidders with the same acknowledgement get one INFORM with all of them as receivers.
+ */
+class BidAcks {
+
+    // The modes of the acknowledgements
+    public static final int NONE = 0;
+    public static final int SUMMARY = 1;
+    public static final int PER_BID = 2;
+
+    private final Agent agent;
+
+    private final int mode;
+
+    // The acknowledgements of the round that are not sent yet, by their numbers of kept and not kept bids
+    private final HashMap<Long,ACLMessage> pending = new HashMap<>();
+
+    public BidAcks(Agent agent, int mode) {
+        this.agent = agent;
+        this.mode = mode;
+    }
+
+    /**
+    *   It returns the mode of the value of the argument "acks": "none", "summary" or "bid".
+    */
+    public static int parseMode(String value) {
+        if ("none".equals(value)) {
+            return NONE;
+        }
+        if ("summary".equals(value)) {
+            return SUMMARY;
+        }
+        if ("bid".equals(value)) {
+            return PER_BID;
+        }
+        throw new IllegalArgumentException("Unknown mode of acknowledgements: " + value);
+    }
+
+    /**
+    *   It acknowledges a message of bids, of which some were kept and some were not.
+    */
+    public void ack(ACLMessage propose, int accepted, int rejected) {
+        if (mode == NONE) {
+            return;
+        }
+        if (mode == PER_BID) {
+            ACLMessage reply = propose.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setByteSequenceContent(AuctionCodec.encodeAck(accepted, rejected));
+            agent.send(reply);
+            return;
+        }
+        Long key = ((long)accepted << 32) | (rejected & 0xFFFFFFFFL);
+        ACLMessage summary = pending.get(key);
+        if (summary == null) {
+            summary = new ACLMessage(ACLMessage.INFORM);
+            summary.setConversationId(propose.getConversationId());
+            summary.setByteSequenceContent(AuctionCodec.encodeAck(accepted, rejected));
+            pending.put(key, summary);
+        }
+        summary.addReceiver(propose.getSender());
+    }
+
+    /**
+    *   It sends the acknowledgements of the round, if they are sent once for the round.
+    */
+    public void flush() {
+        for (ACLMessage summary : pending.values()) {
+            agent.send(summary);
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,421 @@
+package english;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The journal of the auctioneer (argument "journal"): a file where every item that is added to the catalogue,
+ * every bid that is kept and every item that is sold or taken out of the catalogue is appended,
+ * so that an auctioneer that starts again rebuilds its catalogue and its bids from it.
+ *
+ * The file is mapped into memory in chunks and a record is written straight into the mapped chunk, without copies
+ * and without a system call. The pages of the mapping belong to the operating system, so a record survives a crash
+ * of the JVM as soon as it is written. A thread of the journal forces the records to the disk every few ms
+ * (argument "journal-sync", 10 ms by default), all the records of that time with one force (group commit),
+ * so they also survive a crash of the machine after at most that time.
+ *
+ * A record is its length (4 bytes), the CRC-32 of the rest (4 bytes), its type (1 byte), the name of the item
+ * (2 bytes of length and the UTF-8 bytes), a price (4 bytes) and the name of a bidder (like the name of the item).
+ * The length is written last, so a record that was not written whole is read as the end of the journal.
+ * A record never crosses the end of a chunk: the rest of the chunk is marked with the length -1.
+ */
+class BidJournal {
+
+    // The size of a mapped chunk of the file
+    public static final int CHUNK_SIZE = 16 << 20;
+
+    // The types of the records
+    public static final byte ITEM = 1;
+    public static final byte BID = 2;
+    public static final byte SOLD = 3;
+    public static final byte REMOVED = 4;
+
+    // The length that marks the rest of a chunk as empty
+    private static final int END_OF_CHUNK = -1;
+
+    // The length and the CRC of a record
+    private static final int HEADER = 8;
+
+    // The bytes of a record that are copied for its CRC at a time
+    private static final int CRC_SCRATCH = 512;
+
+    /**
+    *   The records of a journal, in the order they were written, for an auctioneer that starts again.
+    */
+    interface Records {
+
+        void item(String name, int price);
+
+        void bid(String name, int price, String bidder);
+
+        void sold(String name, int price, String winner);
+
+        void removed(String name);
+    }
+
+    private final String path;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    // The chunk that is written now, and where it starts in the file
+    private volatile MappedByteBuffer chunk = null;
+    private long chunkStart = 0;
+
+    // A view of the chunk that is written now, whose position the CRC of a record moves
+    private ByteBuffer view = null;
+
+    // The CRC of the records that are written, and the bytes that it reads at a time
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[CRC_SCRATCH];
+
+    // The position in the file of the next record
+    private long position = 0;
+
+    // The position up to which the records are written, and up to which they are forced to the disk
+    private volatile long written = 0;
+    private long synced = 0;
+
+    // The chunks that are full and not forced to the disk yet
+    private final ConcurrentLinkedQueue<MappedByteBuffer> retired = new ConcurrentLinkedQueue<>();
+
+    // The number of records that were read when the journal was opened
+    private long recovered = 0;
+
+    private volatile boolean closed = false;
+
+    private Thread syncer = null;
+
+    private BidJournal(String path) throws IOException {
+        this.path = path;
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+    }
+
+    /**
+    *   It opens a journal, gives its records from a position on to the auctioneer (if records is not null),
+    *   and then appends the new records after them. The position is 0, or a position that a snapshot covers.
+    *   The records are forced to the disk every syncMillis ms, or by the operating system only if it is 0.
+    */
+    public static BidJournal open(String path, long syncMillis, long from, Records records) throws IOException {
+        final BidJournal journal = new BidJournal(path);
+        try {
+            journal.position = journal.read(from, Long.MAX_VALUE, records, true);
+            journal.map(journal.position - journal.position % CHUNK_SIZE);
+            journal.clearTail();
+        }
+        catch (IOException e) {
+            journal.channel.close();
+            throw e;
+        }
+        journal.written = journal.position;
+        journal.synced = journal.position;
+        if (syncMillis > 0) {
+            final long nanos = syncMillis * 1000000L;
+            journal.syncer = new Thread(new Runnable() {
+                public void run() {
+                    while (!journal.closed) {
+                        LockSupport.parkNanos(nanos);
+                        journal.sync();
+                    }
+                }
+            }, "journal-sync");
+            journal.syncer.setDaemon(true);
+            journal.syncer.start();
+        }
+        return journal;
+    }
+
+    /**
+    *   It returns the number of records that were read when the journal was opened.
+    */
+    public long getRecovered() {
+        return recovered;
+    }
+
+    /**
+    *   It returns the position up to which the records are written. It can be read by any thread.
+    */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+    *   It returns the path of the file of the journal.
+    */
+    public String getPath() {
+        return path;
+    }
+
+    public void item(String name, int price) {
+        append(ITEM, name, price, "");
+    }
+
+    public void bid(String name, int price, String bidder) {
+        append(BID, name, price, bidder);
+    }
+
+    public void sold(String name, int price, String winner) {
+        append(SOLD, name, price, winner);
+    }
+
+    public void removed(String name) {
+        append(REMOVED, name, 0, "");
+    }
+
+    // Write a record into the mapped chunk. It is invoked by the thread of the agent only.
+    private void append(byte type, String name, int price, String party) {
+        int nameLength = utf8Length(name);
+        int partyLength = utf8Length(party);
+        int length = 1 + 2 + nameLength + 4 + 2 + partyLength;
+        try {
+            reserve(HEADER + length);
+        }
+        catch (IOException e) {
+            AuctionLog.error("The journal {} cannot grow: {}", path, e.getMessage());
+            return;
+        }
+        MappedByteBuffer buffer = chunk;
+        int start = (int) (position - chunkStart);
+        int at = start + HEADER;
+        buffer.put(at, type);
+        at = putString(buffer, at + 1, name, nameLength);
+        buffer.putInt(at, price);
+        putString(buffer, at + 4, party, partyLength);
+        buffer.putInt(start + 4, crc(view, start + HEADER, length, crc, scratch));
+        // The record is complete only when its length is written
+        buffer.putInt(start, length);
+        position += HEADER + length;
+        written = position;
+    }
+
+    // Move to the next chunk if the record does not fit in the rest of this one
+    private void reserve(int size) throws IOException {
+        if (size > CHUNK_SIZE) {
+            throw new IOException("A record of " + size + " bytes is larger than a chunk");
+        }
+        int start = (int) (position - chunkStart);
+        if (start + size > CHUNK_SIZE) {
+            if (CHUNK_SIZE - start >= 4) {
+                chunk.putInt(start, END_OF_CHUNK);
+            }
+            retired.add(chunk);
+            map(chunkStart + CHUNK_SIZE);
+            position = chunkStart;
+        }
+    }
+
+    // Map the chunk that starts at a position of the file
+    private void map(long start) throws IOException {
+        chunkStart = start;
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, CHUNK_SIZE);
+        view = chunk.duplicate();
+    }
+
+    // Zero the rest of the chunk after a record that was not written whole, so it is not read again
+    private void clearTail() {
+        int start = (int) (position - chunkStart);
+        if (start + 4 <= CHUNK_SIZE && chunk.getInt(start) != 0) {
+            for (int i = start; i < CHUNK_SIZE; i++) {
+                chunk.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+    *   It forces the records that are written to the disk, all of them at once.
+    */
+    public void sync() {
+        sync(null);
+    }
+
+    // Force the records that are written and return the chunk that holds the last of them, or null if nothing is new.
+    // The task runs after the full chunks are forced, so the checks can fill a chunk at that moment.
+    synchronized MappedByteBuffer sync(Runnable drained) {
+        long upTo = written;
+        if (upTo == synced) {
+            return null;
+        }
+        // The chunk is read before the full chunks: if the writer moves to a new chunk meanwhile,
+        // the chunk that holds the records up to upTo is still the one that is forced here
+        MappedByteBuffer current = chunk;
+        MappedByteBuffer full;
+        while ((full = retired.poll()) != null) {
+            full.force();
+        }
+        if (drained != null) {
+            drained.run();
+        }
+        current.force();
+        synced = upTo;
+        return current;
+    }
+
+    /**
+    *   It forces the last records to the disk and closes the journal.
+    */
+    public void close() {
+        closed = true;
+        if (syncer != null) {
+            LockSupport.unpark(syncer);
+        }
+        sync();
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+        }
+    }
+
+    /**
+    *   It gives the records from a position up to another (written before) to a reader, like the thread of the snapshots,
+    *   and returns the position after the last one. It can be invoked by any thread.
+    */
+    public long read(long from, long upTo, Records records) throws IOException {
+        return read(from, upTo, records, false);
+    }
+
+    // Read the records of the file from a position and return the position after the last one
+    private long read(long from, long upTo, Records records, boolean recovering) throws IOException {
+        long size = channel.size();
+        // The reader has its own CRC, because it may be another thread than the writer
+        CRC32 crc = new CRC32();
+        byte[] scratch = new byte[CRC_SCRATCH];
+        long start = from - from % CHUNK_SIZE;
+        int at = (int) (from - start);
+        while (start < size) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            int limit = buffer.limit();
+            while (true) {
+                if (start + at >= upTo) {
+                    return start + at;
+                }
+                if (limit - at < HEADER) {
+                    break;
+                }
+                int length = buffer.getInt(at);
+                if (length == END_OF_CHUNK) {
+                    break;
+                }
+                if (length <= 0 || length > limit - at - HEADER
+                        || buffer.getInt(at + 4) != crc(buffer, at + HEADER, length, crc, scratch)) {
+                    // The end of the journal, or a record that was not written whole
+                    return start + at;
+                }
+                if (records != null) {
+                    decode(buffer, at + HEADER, records);
+                }
+                if (recovering) {
+                    recovered++;
+                }
+                at += HEADER + length;
+            }
+            if (limit < CHUNK_SIZE) {
+                // The last chunk of the file ends before its size
+                return start + at;
+            }
+            start += CHUNK_SIZE;
+            at = 0;
+        }
+        return start + at;
+    }
+
+    // Give a record to the auctioneer
+    private void decode(MappedByteBuffer buffer, int at, Records records) {
+        byte type = buffer.get(at);
+        int nameLength = buffer.getShort(at + 1) & 0xFFFF;
+        String name = getString(buffer, at + 3, nameLength);
+        at += 3 + nameLength;
+        int price = buffer.getInt(at);
+        int partyLength = buffer.getShort(at + 4) & 0xFFFF;
+        String party = getString(buffer, at + 6, partyLength);
+        switch (type) {
+            case ITEM:
+                records.item(name, price);
+                break;
+            case BID:
+                records.bid(name, price, party);
+                break;
+            case SOLD:
+                records.sold(name, price, party);
+                break;
+            case REMOVED:
+                records.removed(name);
+                break;
+            default:
+                AuctionLog.warn("Unknown record {} in the journal {}.", type, path);
+        }
+    }
+
+    // The number of UTF-8 bytes of a name, that is the number of chars if they are all ASCII
+    private static int utf8Length(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                int length = s.getBytes(StandardCharsets.UTF_8).length;
+                if (length > 0xFFFF) {
+                    throw new IllegalArgumentException("The name is too long for the journal!");
+                }
+                return length;
+            }
+        }
+        if (s.length() > 0xFFFF) {
+            throw new IllegalArgumentException("The name is too long for the journal!");
+        }
+        return s.length();
+    }
+
+    // Write the length and the UTF-8 bytes of a name, and return the position after them
+    private static int putString(MappedByteBuffer buffer, int at, String s, int length) {
+        buffer.putShort(at, (short) length);
+        at += 2;
+        if (length == s.length()) {
+            for (int i = 0; i < length; i++) {
+                buffer.put(at + i, (byte) s.charAt(i));
+            }
+        }
+        else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < length; i++) {
+                buffer.put(at + i, bytes[i]);
+            }
+        }
+        return at + length;
+    }
+
+    private static String getString(MappedByteBuffer buffer, int at, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(at + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // The CRC-32 of the bytes of a buffer, copied a few hundred at a time into the scratch array.
+    // It moves the position of the buffer, so the buffer must be one that only this thread uses.
+    private static int crc(ByteBuffer buffer, int from, int length, CRC32 crc, byte[] scratch) {
+        crc.reset();
+        buffer.position(from);
+        while (length > 0) {
+            int n = Math.min(length, scratch.length);
+            buffer.get(scratch, 0, n);
+            crc.update(scratch, 0, n);
+            length -= n;
+        }
+        return (int) crc.getValue();
+    }
+}
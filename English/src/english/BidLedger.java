@@ -0,0 +1,145 @@
+package english;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The catalogue of bids for each item.
+ * The bids of an item are kept in a growable array of primitive ints, so adding a bid does not box it.
+ * The arrays of the items that are removed are kept in a pool and given to the next items.
+ * memoryBytes() returns the bytes of the arrays of prices: 4 bytes for every bid, the unused end of every array
+ * (up to half of it right after it grows) and the arrays in the pool.
+ */
+class BidLedger {
+
+    /**
+    *   The bids of one item.
+    */
+    static class Bids {
+
+        // The prices of the bids, in the order they were received
+        private int[] prices;
+
+        // The number of bids
+        private int size = 0;
+
+        Bids(int[] prices) {
+            this.prices = prices;
+        }
+
+        /**
+        *   It adds a bid.
+        */
+        public void add(int price) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, Math.max(INITIAL_CAPACITY, prices.length * 2));
+            }
+            prices[size++] = price;
+        }
+
+        /**
+        *   It returns the price of the i-th bid.
+        */
+        public int get(int i) {
+            if (i >= size) {
+                throw new IndexOutOfBoundsException("Bid " + i + " of " + size);
+            }
+            return prices[i];
+        }
+
+        /**
+        *   It returns the number of bids.
+        */
+        public int size() {
+            return size;
+        }
+    }
+
+    // The initial capacity of the array of an item
+    private static final int INITIAL_CAPACITY = 8;
+
+    // The maximum number of arrays that are kept in the pool
+    private static final int MAX_POOLED = 256;
+
+    // Larger arrays are left to the garbage collector instead of the pool
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+
+    // An empty array for the bids that have been released
+    private static final int[] RELEASED = new int[0];
+
+    // It maps the name of an item to its bids
+    private final HashMap<String,Bids> items = new HashMap<>();
+
+    // The arrays of the items that have been removed, ready to be used again
+    private final ArrayDeque<int[]> pool = new ArrayDeque<>();
+
+    /**
+    *   It returns the bids of an item, creating them if the item has no bids yet.
+    */
+    public Bids open(String name) {
+        Bids bids = items.get(name);
+        if (bids == null) {
+            int[] prices = pool.pollFirst();
+            bids = new Bids(prices != null ? prices : new int[INITIAL_CAPACITY]);
+            items.put(name, bids);
+        }
+        return bids;
+    }
+
+    /**
+    *   It returns the bids of an item, or null if there are none.
+    */
+    public Bids get(String name) {
+        return items.get(name);
+    }
+
+    /**
+    *   It returns true if the item has bids in the ledger.
+    */
+    public boolean containsKey(String name) {
+        return items.containsKey(name);
+    }
+
+    /**
+    *   It removes the bids of an item and keeps their array for the next items.
+    */
+    public void remove(String name) {
+        Bids bids = items.remove(name);
+        if (bids != null) {
+            if (pool.size() < MAX_POOLED && bids.prices.length > 0 && bids.prices.length <= MAX_POOLED_CAPACITY) {
+                pool.addFirst(bids.prices);
+            }
+            // Whoever still holds these bids cannot write into the pooled array
+            bids.prices = RELEASED;
+            bids.size = 0;
+        }
+    }
+
+    /**
+    *   It returns the number of items with bids.
+    */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+    *   It returns the number of bytes used by the arrays of prices, including their unused end and the pool.
+    *   The entries of the map and the Bids of the items are not counted.
+    */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Bids bids : items.values()) {
+            bytes += 4L * bids.prices.length;
+        }
+        for (int[] prices : pool) {
+            bytes += 4L * prices.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+package english;
+
+import jade.core.Agent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The metrics of a bidder, registered as an MBean of the platform: the budget that is left and the bids that were sent.
+ * Like the metrics of the auctioneer, they are written by the thread of the agent only and read by JMX.
+ */
+class BidderMetrics implements BidderMetricsMBean {
+
+    private final AtomicLong budget = new AtomicLong();
+    private final AtomicLong bidsSent = new AtomicLong();
+    private final AtomicLong lotsWon = new AtomicLong();
+
+    // The name of the MBean, or null if it is not registered
+    private ObjectName name = null;
+
+    /**
+    *   It creates the metrics of a bidder with its budget and registers them to the MBean server of the platform.
+    */
+    public static BidderMetrics register(Agent agent, long budget) {
+        BidderMetrics metrics = new BidderMetrics();
+        metrics.budget.set(budget);
+        try {
+            ObjectName name = new ObjectName("english:type=Bidder,name=" + ObjectName.quote(agent.getLocalName()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metrics.name = name;
+        }
+        catch (JMException e) {
+            AuctionLog.warn("The metrics of {} cannot be registered: {}", agent.getLocalName(), e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+    *   It removes the MBean from the MBean server.
+    */
+    public void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            catch (JMException e) {
+            }
+            name = null;
+        }
+    }
+
+    public void bidSent() {
+        bidsSent.lazySet(bidsSent.get() + 1);
+    }
+
+    public void won(long budgetLeft) {
+        lotsWon.lazySet(lotsWon.get() + 1);
+        budget.lazySet(budgetLeft);
+    }
+
+    public long getBudget() {
+        return budget.get();
+    }
+
+    public long getBidsSent() {
+        return bidsSent.get();
+    }
+
+    public long getLotsWon() {
+        return lotsWon.get();
+    }
+}
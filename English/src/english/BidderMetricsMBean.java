@@ -0,0 +1,20 @@
+package english;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The metrics of a bidder that JMX shows, under the name english:type=Bidder,name="local name".
+ */
+public interface BidderMetricsMBean {
+
+    long getBudget();
+
+    long getBidsSent();
+
+    long getLotsWon();
+}
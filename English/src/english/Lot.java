@@ -0,0 +1,113 @@
+package english;
+
+import jade.core.AID;
+import jade.lang.acl.MessageTemplate;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The state of one item that is being auctioned.
+ * Every lot has its own rounds, conversation id and bids, so that many lots can run at the same time.
+ */
+class Lot {
+
+    // The name of the item on sale
+    public final String itemName;
+
+    // The initial price of the item
+    public final int initialPrice;
+
+    // The conversation id of all the messages of this lot
+    public final String conversationId;
+
+    // The bids that were made for the item
+    public BidLedger.Bids bids;
+
+    // The number of the current round ("time circle")
+    public int round = 0;
+
+    // The time (ns) when the first CFP of the lot was sent
+    public long startedAt = 0;
+
+    // The template to receive replies
+    public MessageTemplate mt;
+
+    // The list of bidders
+    public AID[] bidders;
+
+    // The bidder who provides the best offer
+    public AID bestBidder;
+
+    // The best offered price currently
+    public int bestPrice;
+
+    // It is true if there are bidders found
+    public boolean biddersFound = false;
+
+    // It returns true if there is CFP sent
+    public boolean CFPSent = false;
+
+    //It is true if there are bids received
+    public boolean bidsReceived = false;
+
+    //Previous' "time circle" best price and bidder
+    public int previousPrice = 0;
+    public AID previousBidder = null;
+
+    // The second highest maximum of proxy bidding, or -1 if there is none
+    public int secondPrice = -1;
+
+    //the count of bidders
+    public int biddersCount = 0;
+
+    public Lot(String itemName, int initialPrice, String conversationId, BidLedger.Bids bids) {
+        this.itemName = itemName;
+        this.initialPrice = initialPrice;
+        this.conversationId = conversationId;
+        this.bids = bids;
+    }
+
+    /**
+    *    It takes the maximum of a bidder in proxy bidding. On a tie the bidder who sent it first keeps the lead.
+    */
+    public void offerMaximum(int price, AID bidder) {
+        if (bestBidder == null || price > bestPrice) {
+            secondPrice = bestBidder == null ? -1 : bestPrice;
+            bestPrice = price;
+            bestBidder = bidder;
+        }
+        else if (price > secondPrice) {
+            secondPrice = price;
+        }
+    }
+
+    /**
+    *    It returns the price of proxy bidding: the ascending auction stops one increment above the second maximum,
+    *    but never above the highest one. A single bidder pays the initial price.
+    */
+    public int proxyPrice(int increment) {
+        if (secondPrice < 0) {
+            return initialPrice;
+        }
+        return Math.min(bestPrice, secondPrice + increment);
+    }
+
+    /**
+    *    Re-initialize the state of the lot for its next round.
+    *    The best bidder is kept, because if nobody makes a new offer the item goes to it.
+    */
+    public void nextRound() {
+        round++;
+        mt = null;
+        bidders = null;
+        bestPrice = 0;
+        biddersFound = false;
+        CFPSent = false;
+        bidsReceived = false;
+    }
+}
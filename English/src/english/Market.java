@@ -0,0 +1,209 @@
+package english;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who runs a continuous double auction of an item: buyers and sellers post limit orders
+ * at any time and the orders trade as soon as they cross, in the order book of the market.
+ * A trader sends a LIMIT_ORDER (PROPOSE) and gets an AGREE with the id of the order, the units that were filled at once
+ * and the units that wait in the book, followed by an INFORM for every trade of the order.
+ * A trade of an order that waits in the book is sent to its trader as an INFORM when it happens,
+ * and a CANCEL of an order of the trader gets a CONFIRM with the units that were cancelled, or a FAILURE if none were waiting.
+ */
+public class Market extends Agent {
+
+    // The protocol of the messages of the market
+    public static final String PROTOCOL = "double-auction";
+
+    // The name of the item that is traded (argument "item")
+    public String item = "item";
+
+    // The buy and sell orders that wait
+    public OrderBook book;
+
+    /**
+    *    Set-up the market.
+    */
+    @Override
+    protected void setup() {
+        item = getArgument("item", item);
+        if (getArgument("log", null) != null) {
+            AuctionLog.setLevel(AuctionLog.parseLevel(getArgument("log", null)));
+        }
+
+        // Register the market to the yellow pages, so that the traders can find it
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(PROTOCOL);
+        sd.setName(item);
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        ReceiveOrders orders = new ReceiveOrders(this);
+        book = new OrderBook(orders);
+        addBehaviour(orders);
+
+        AuctionLog.info("The market of {} is open! Market {} is ready.", item, getAID().getName());
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    *   An argument with no value gives "true".
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *    Agent clean-up operations.
+    */
+    protected void takeDown() {
+        // Deregister from the yellow pages
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        // Show a dismissal message
+        AuctionLog.info("Market {} closes after {} trades of {} units. {} orders wait in the book.",
+                getAID().getName(), book.getTrades(), book.getVolume(), book.size());
+    }
+}
+
+/**
+ * It receives the orders and the cancellations of the traders, matches the orders in the book
+ * and tells both traders of every trade.
+ */
+class ReceiveOrders extends CyclicBehaviour implements OrderBook.Trades {
+
+    private Market myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchConversationId(Market.PROTOCOL),
+                                                     MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                                                                        MessageTemplate.MatchPerformative(ACLMessage.CANCEL)));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    // The units of the order that is matched right now that are not filled yet, and its trades,
+    // that are sent to its trader after the answer to the order
+    private int unfilled;
+    private ArrayList<byte[]> currentTrades = new ArrayList<>();
+
+    public ReceiveOrders(Market agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg == null) {
+            block();
+            return;
+        }
+
+        AuctionCodec.Content order;
+        try {
+            order = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The order of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+
+        if (msg.getPerformative() == ACLMessage.PROPOSE && order.type == AuctionCodec.LIMIT_ORDER) {
+            ACLMessage reply = msg.createReply();
+            if (order.price < 0 || order.quantity <= 0) {
+                reply.setPerformative(ACLMessage.REFUSE);
+                reply.setContent("invalid-order");
+                myAgent.send(reply);
+                return;
+            }
+            int price = order.price;
+            int quantity = order.quantity;
+            unfilled = quantity;
+            long id = myAgent.book.submit(order.buy, price, quantity, msg.getSender().getName());
+
+            reply.setPerformative(ACLMessage.AGREE);
+            reply.setByteSequenceContent(AuctionCodec.encodeOrderStatus(id, price, quantity - unfilled, unfilled));
+            myAgent.send(reply);
+            for (byte[] trade : currentTrades) {
+                ACLMessage inform = msg.createReply();
+                inform.setPerformative(ACLMessage.INFORM);
+                inform.setByteSequenceContent(trade);
+                myAgent.send(inform);
+            }
+            currentTrades.clear();
+            if (AuctionLog.isDebugEnabled()) {
+                AuctionLog.debug("Order {} of {}: {} units wait in the book at {}.", id, msg.getSender().getLocalName(), unfilled, price);
+            }
+        }
+        else if (msg.getPerformative() == ACLMessage.CANCEL && order.type == AuctionCodec.CANCEL_ORDER) {
+            // A trader cancels only its own orders
+            String owner = myAgent.book.owner(order.orderId);
+            int cancelled = msg.getSender().getName().equals(owner) ? myAgent.book.cancel(order.orderId) : 0;
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(cancelled > 0 ? ACLMessage.CONFIRM : ACLMessage.FAILURE);
+            reply.setByteSequenceContent(AuctionCodec.encodeOrderStatus(order.orderId, 0, 0, cancelled));
+            myAgent.send(reply);
+        }
+    }
+
+    /**
+    *   It is told of a trade by the book: the trade of the order that is matched is kept for its answer,
+    *   and the trade of the order that waited is sent to its trader at once.
+    */
+    public void trade(long buyOrder, String buyer, long sellOrder, String seller, int price, int quantity) {
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("{} units traded at {} by {} and {}.", quantity, price, buyer, seller);
+        }
+        // The order that is matched came after the order that waited, so it has the higher id
+        boolean buyerMatched = buyOrder > sellOrder;
+        unfilled -= quantity;
+        currentTrades.add(AuctionCodec.encodeOrderStatus(buyerMatched ? buyOrder : sellOrder, price, quantity, unfilled));
+
+        long waiting = buyerMatched ? sellOrder : buyOrder;
+        ACLMessage inform = new ACLMessage(ACLMessage.INFORM);
+        inform.addReceiver(new AID(buyerMatched ? seller : buyer, AID.ISGUID));
+        inform.setConversationId(Market.PROTOCOL);
+        inform.setByteSequenceContent(AuctionCodec.encodeOrderStatus(waiting, price, quantity, myAgent.book.remaining(waiting)));
+        myAgent.send(inform);
+    }
+}
@@ -0,0 +1,462 @@
+package english;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The order book of a continuous double auction: buyers and sellers post limit orders, and an order that crosses
+ * the best price of the other side trades at once, at the price of the order that was waiting.
+ * The orders that are not filled wait in the book with price-time priority: the best price first,
+ * and of the orders at one price the earliest first.
+ * Every side keeps its prices in a map with primitive keys and in a heap of the prices, and every price keeps its orders
+ * in a linked list in the order they arrived. So the best bid and the best ask are the top of a heap (O(1)),
+ * a new price or a price that empties costs O(log n) for n prices, and adding or cancelling an order
+ * at a price that is in the book costs O(1). The orders and the prices are kept in pools and used again.
+ * It is not thread-safe: the market uses it from the thread of its agent.
+ */
+class OrderBook {
+
+    /**
+    *   It is told of every trade, while an order is matched. It must not change the book.
+    */
+    interface Trades {
+        void trade(long buyOrder, String buyer, long sellOrder, String seller, int price, int quantity);
+    }
+
+    /**
+    *   An order that waits in the book.
+    */
+    private static final class Order {
+        long id;
+        String owner;
+        int remaining;
+        Level level;
+
+        // The previous and the next order at the same price, or the next free order of the pool
+        Order previous, next;
+    }
+
+    /**
+    *   A price of one side of the book, with its orders from the earliest to the latest.
+    */
+    private static final class Level {
+        int price;
+        long quantity;
+        int orders;
+        Order first, last;
+
+        // The side of the price and its place in the heap of the side
+        Side side;
+        int heapIndex;
+
+        // The next free price of the pool
+        Level next;
+    }
+
+    /**
+    *   One side of the book: its prices by value and a heap with the best price on top.
+    */
+    private static final class Side {
+
+        // The bids have the highest price on top, the asks the lowest
+        private final boolean buy;
+
+        private final LongMap<Level> levels = new LongMap<>();
+
+        private Level[] heap = new Level[64];
+        private int size = 0;
+
+        Side(boolean buy) {
+            this.buy = buy;
+        }
+
+        Level best() {
+            return size > 0 ? heap[0] : null;
+        }
+
+        // It is true if the price a comes before the price b
+        private boolean better(Level a, Level b) {
+            return buy ? a.price > b.price : a.price < b.price;
+        }
+
+        void add(Level level) {
+            levels.put(level.price, level);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            place(level, size++);
+            siftUp(level.heapIndex);
+        }
+
+        void remove(Level level) {
+            levels.remove(level.price);
+            int i = level.heapIndex;
+            Level last = heap[--size];
+            heap[size] = null;
+            if (i < size) {
+                place(last, i);
+                siftDown(i);
+                siftUp(last.heapIndex);
+            }
+        }
+
+        private void place(Level level, int i) {
+            heap[i] = level;
+            level.heapIndex = i;
+        }
+
+        private void siftUp(int i) {
+            Level level = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(level, heap[parent])) {
+                    break;
+                }
+                place(heap[parent], i);
+                i = parent;
+            }
+            place(level, i);
+        }
+
+        private void siftDown(int i) {
+            Level level = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && better(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!better(heap[child], level)) {
+                    break;
+                }
+                place(heap[child], i);
+                i = child;
+            }
+            place(level, i);
+        }
+    }
+
+    private final Side bids = new Side(true);
+    private final Side asks = new Side(false);
+
+    // The orders that wait in the book, by their id
+    private final LongMap<Order> orders = new LongMap<>();
+
+    // The free orders and prices, ready to be used again
+    private Order freeOrders = null;
+    private Level freeLevels = null;
+
+    // The id of the next order
+    private long nextId = 1;
+
+    // The number of trades and the units that have been traded
+    private long trades = 0;
+    private long volume = 0;
+
+    private final Trades listener;
+
+    public OrderBook(Trades listener) {
+        this.listener = listener;
+    }
+
+    /**
+    *   It posts a limit order: a buy order for up to a price or a sell order for at least a price.
+    *   The order trades at once with the orders of the other side that it crosses, best price first,
+    *   and the units that are not filled wait in the book. It returns the id of the order.
+    */
+    public long submit(boolean buy, int price, int quantity, String owner) {
+        if (price < 0 || quantity <= 0) {
+            throw new IllegalArgumentException("An order has a price of at least 0 and at least one unit!");
+        }
+        long id = nextId++;
+        Side other = buy ? asks : bids;
+        Level best;
+        while (quantity > 0 && (best = other.best()) != null && (buy ? best.price <= price : best.price >= price)) {
+            Order maker = best.first;
+            int traded = Math.min(quantity, maker.remaining);
+            maker.remaining -= traded;
+            best.quantity -= traded;
+            quantity -= traded;
+            trades++;
+            volume += traded;
+            if (buy) {
+                listener.trade(id, owner, maker.id, maker.owner, best.price, traded);
+            }
+            else {
+                listener.trade(maker.id, maker.owner, id, owner, best.price, traded);
+            }
+            if (maker.remaining == 0) {
+                orders.remove(maker.id);
+                unlink(maker);
+            }
+        }
+        if (quantity > 0) {
+            rest(buy ? bids : asks, id, price, quantity, owner);
+        }
+        return id;
+    }
+
+    /**
+    *   It cancels the units of an order that wait in the book. It returns the units that were cancelled,
+    *   or 0 if the order is not in the book any more.
+    */
+    public int cancel(long id) {
+        Order order = orders.remove(id);
+        if (order == null) {
+            return 0;
+        }
+        int remaining = order.remaining;
+        order.level.quantity -= remaining;
+        unlink(order);
+        return remaining;
+    }
+
+    /**
+    *   It returns the highest price of a buy order, or -1 if there is none.
+    */
+    public int bestBid() {
+        Level best = bids.best();
+        return best != null ? best.price : -1;
+    }
+
+    /**
+    *   It returns the lowest price of a sell order, or -1 if there is none.
+    */
+    public int bestAsk() {
+        Level best = asks.best();
+        return best != null ? best.price : -1;
+    }
+
+    /**
+    *   It returns the units that wait in the book at a price of one side.
+    */
+    public long depth(boolean buy, int price) {
+        Level level = (buy ? bids : asks).levels.get(price);
+        return level != null ? level.quantity : 0;
+    }
+
+    /**
+    *   It returns the units of an order that wait in the book, or 0 if it is not in the book.
+    */
+    public int remaining(long id) {
+        Order order = orders.get(id);
+        return order != null ? order.remaining : 0;
+    }
+
+    /**
+    *   It returns the owner of an order that waits in the book, or null if it is not in the book.
+    */
+    public String owner(long id) {
+        Order order = orders.get(id);
+        return order != null ? order.owner : null;
+    }
+
+    /**
+    *   It returns the number of orders that wait in the book.
+    */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+    *   It returns the number of prices of one side of the book.
+    */
+    public int levels(boolean buy) {
+        return (buy ? bids : asks).size;
+    }
+
+    /**
+    *   It returns the number of trades so far.
+    */
+    public long getTrades() {
+        return trades;
+    }
+
+    /**
+    *   It returns the units that have been traded so far.
+    */
+    public long getVolume() {
+        return volume;
+    }
+
+    // It puts the units of an order that are not filled at the end of its price
+    private void rest(Side side, long id, int price, int quantity, String owner) {
+        Level level = side.levels.get(price);
+        if (level == null) {
+            level = newLevel(price);
+            level.side = side;
+            side.add(level);
+        }
+        Order order = newOrder();
+        order.id = id;
+        order.owner = owner;
+        order.remaining = quantity;
+        order.level = level;
+        order.previous = level.last;
+        if (level.last != null) {
+            level.last.next = order;
+        }
+        else {
+            level.first = order;
+        }
+        level.last = order;
+        level.orders++;
+        level.quantity += quantity;
+        orders.put(id, order);
+    }
+
+    // It takes an order out of its price, and the price out of its side when it has no orders left
+    private void unlink(Order order) {
+        Level level = order.level;
+        if (order.previous != null) {
+            order.previous.next = order.next;
+        }
+        else {
+            level.first = order.next;
+        }
+        if (order.next != null) {
+            order.next.previous = order.previous;
+        }
+        else {
+            level.last = order.previous;
+        }
+        if (--level.orders == 0) {
+            level.side.remove(level);
+            level.first = null;
+            level.last = null;
+            level.quantity = 0;
+            level.next = freeLevels;
+            freeLevels = level;
+        }
+        order.owner = null;
+        order.level = null;
+        order.previous = null;
+        order.next = freeOrders;
+        freeOrders = order;
+    }
+
+    private Order newOrder() {
+        Order order = freeOrders;
+        if (order == null) {
+            return new Order();
+        }
+        freeOrders = order.next;
+        order.next = null;
+        return order;
+    }
+
+    private Level newLevel(int price) {
+        Level level = freeLevels;
+        if (level == null) {
+            level = new Level();
+        }
+        else {
+            freeLevels = level.next;
+            level.next = null;
+        }
+        level.price = price;
+        return level;
+    }
+
+    /**
+    *   A hash map with primitive long keys and open addressing, so a lookup does not box its key.
+    *   A removed entry is filled by moving the entries after it back, so the map needs no deleted markers.
+    */
+    static final class LongMap<V> {
+
+        private long[] keys = new long[64];
+        private Object[] values = new Object[64];
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, V value) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            // Keep the map at most half full
+            if (++size > keys.length / 2) {
+                grow();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                return null;
+            }
+            V value = (V) values[i];
+            values[i] = null;
+            size--;
+            // Move back the entries that would not be found behind the hole
+            int hole = i;
+            for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    values[j] = null;
+                    hole = j;
+                }
+            }
+            return value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = slot(oldKeys[j], mask);
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package english;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who trades on the market of a continuous double auction (Market) with limit orders.
+ * Every interval it cancels its order that waits in the book, if there is one, and posts a new order
+ * for a few units at a random price around the last price it knows, so some orders trade at once and some wait.
+ * It buys or sells (argument "side", random by default) and terminates after its orders (argument "orders", 100)
+ * are posted. The orders are posted every "interval" ms (500), starting around the price "price" (100).
+ */
+public class Trader extends Agent {
+
+    // It is true if the trader buys, false if it sells
+    public boolean buy;
+
+    // The market, found in the yellow pages
+    public AID market;
+
+    // The number of orders to post and the number of orders that have been posted
+    public int orders = 100;
+    public int posted = 0;
+
+    // The last price of a trade that the trader knows
+    public int lastPrice = 100;
+
+    // The id of the order of the trader that waits in the book, or 0 if none waits
+    public long waiting = 0;
+
+    // The units that the trader has bought or sold and what they cost
+    public long units = 0;
+    public long amount = 0;
+
+    // Random number generator
+    static Random rn = new Random();
+
+    // Agent initializations
+    protected void setup() {
+        String side = getArgument("side", rn.nextBoolean() ? "buy" : "sell");
+        buy = side.equals("buy");
+        orders = Integer.parseInt(getArgument("orders", String.valueOf(orders)));
+        lastPrice = Integer.parseInt(getArgument("price", String.valueOf(lastPrice)));
+        long interval = Long.parseLong(getArgument("interval", "500"));
+        AuctionLog.info("Trader {} is ready to {}.", getAID().getName(), side);
+
+        // Add the behaviour that posts the orders
+        addBehaviour(new PostOrders(this, interval));
+
+        // Add the behaviour for receiving the answers and the trades of the market
+        addBehaviour(new ReceiveTrades(this));
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    *   An argument with no value gives "true".
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *   It finds the market in the yellow pages and returns true if it is found.
+    */
+    public boolean findMarket() {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(Market.PROTOCOL);
+        template.addServices(sd);
+        try {
+            DFAgentDescription[] result = DFService.search(this, template);
+            if (result.length > 0) {
+                market = result[0].getName();
+            }
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+        return market != null;
+    }
+
+    // Agent clean-up operations
+    protected void takeDown() {
+        // Show a dismissal message
+        AuctionLog.info("Trader {} terminating. It {} {} units for {}.", getAID().getName(), buy ? "bought" : "sold", units, amount);
+    }
+}
+
+/**
+ * Every tick it cancels the order that waits and posts the next one.
+ */
+class PostOrders extends TickerBehaviour {
+
+    private Trader myAgent;
+
+    public PostOrders(Trader agent, long interval) {
+        super(agent, interval);
+        myAgent = agent;
+    }
+
+    protected void onTick() {
+        if (myAgent.market == null && !myAgent.findMarket()) {
+            AuctionLog.debug("{} is waiting for a market.", myAgent.getLocalName());
+            return;
+        }
+        if (myAgent.posted >= myAgent.orders) {
+            myAgent.doDelete();
+            return;
+        }
+
+        // An order that has waited for a whole tick is cancelled
+        if (myAgent.waiting != 0) {
+            ACLMessage cancel = new ACLMessage(ACLMessage.CANCEL);
+            cancel.addReceiver(myAgent.market);
+            cancel.setConversationId(Market.PROTOCOL);
+            cancel.setByteSequenceContent(AuctionCodec.encodeCancelOrder(myAgent.waiting));
+            myAgent.send(cancel);
+            myAgent.waiting = 0;
+        }
+
+        // A price up to 5 from the last price, on either side of it
+        int price = Math.max(1, myAgent.lastPrice + Trader.rn.nextInt(11) - 5);
+        int quantity = Trader.rn.nextInt(10) + 1;
+        ACLMessage order = new ACLMessage(ACLMessage.PROPOSE);
+        order.addReceiver(myAgent.market);
+        order.setConversationId(Market.PROTOCOL);
+        order.setByteSequenceContent(AuctionCodec.encodeLimitOrder(myAgent.buy, price, quantity));
+        myAgent.send(order);
+        myAgent.posted++;
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("{} posts an order to {} {} units at {}.", myAgent.getLocalName(), myAgent.buy ? "buy" : "sell", quantity, price);
+        }
+    }
+}
+
+/**
+ * It receives the answers to the orders and the cancellations, and the trades of the orders.
+ */
+class ReceiveTrades extends CyclicBehaviour {
+
+    private Trader myAgent;
+
+    private MessageTemplate mt = MessageTemplate.MatchConversationId(Market.PROTOCOL);
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveTrades(Trader agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg == null) {
+            block();
+            return;
+        }
+        if (msg.getPerformative() == ACLMessage.REFUSE) {
+            AuctionLog.warn("The market refused an order of {}.", myAgent.getLocalName());
+            return;
+        }
+
+        AuctionCodec.Content status;
+        try {
+            status = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The answer of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+
+        switch (msg.getPerformative()) {
+            case ACLMessage.AGREE:
+                // The order is in the book if some of its units wait
+                if (status.remaining > 0) {
+                    myAgent.waiting = status.orderId;
+                }
+                break;
+            case ACLMessage.INFORM:
+                // A trade of an order
+                myAgent.lastPrice = status.price;
+                myAgent.units += status.filled;
+                myAgent.amount += (long) status.price * status.filled;
+                if (status.remaining == 0 && status.orderId == myAgent.waiting) {
+                    myAgent.waiting = 0;
+                }
+                AuctionLog.info("{} {} {} units at {}.", myAgent.getLocalName(), myAgent.buy ? "bought" : "sold", status.filled, status.price);
+                break;
+            case ACLMessage.CONFIRM:
+                if (AuctionLog.isDebugEnabled()) {
+                    AuctionLog.debug("{} cancelled {} units of order {}.", myAgent.getLocalName(), status.remaining, status.orderId);
+                }
+                break;
+            default:
+                // The order was filled before it could be cancelled
+                break;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package secondbid;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * A small harness for the benchmarks, that needs no JADE platform.
+ * It warms an operation up, runs it for a while and reports the operations per second
+ * and the bytes allocated per operation by the running thread.
+ */
+abstract class Bench {
+
+    // Keeps the results of the operations, so that the JIT cannot drop them
+    static volatile long sink;
+
+    // The time (ms) to warm up and to measure
+    static long warmupMillis = Long.getLong("bench.warmup", 1000);
+    static long measureMillis = Long.getLong("bench.measure", 2000);
+
+    // The name of the benchmark
+    final String name;
+
+    Bench(String name) {
+        this.name = name;
+    }
+
+    /**
+    *   One operation. The value that it returns goes to the sink.
+    */
+    abstract long op(int i);
+
+    /**
+    *   It runs the benchmark and prints "name  ops/s  B/op".
+    */
+    void run() {
+        loop(warmupMillis);
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long ops = loop(measureMillis);
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        // When the JVM cannot count the bytes both counts are -1, so B/op is NaN and not 0
+        System.out.println(String.format("%-40s %14.0f ops/s %10.1f B/op",
+                name, ops * 1e9 / nanos, bytesBefore < 0 ? Double.NaN : (double)bytes / ops));
+    }
+
+    // Run the operation in batches until the time is over and return the number of operations
+    private long loop(long millis) {
+        long end = System.nanoTime() + millis * 1000000L;
+        long ops = 0;
+        long acc = 0;
+        int i = 0;
+        while (System.nanoTime() < end) {
+            for (int j = 0; j < 1000; j++) {
+                acc += op(i++);
+            }
+            ops += 1000;
+        }
+        sink = acc;
+        return ops;
+    }
+
+    // The bytes allocated so far by this thread, or -1 if the JVM cannot tell
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
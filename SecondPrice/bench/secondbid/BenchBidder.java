@@ -0,0 +1,83 @@
+package secondbid;
+
+import jade.core.Agent;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * A bidder for the benchmarks. It has no budget and no output: it bids on every lot a little above the initial price,
+ * so every lot is sold, and it drops every other message.
+ */
+public class BenchBidder extends Agent {
+
+    protected void setup() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("blind-auction");
+        sd.setName("Blind-Auction");
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        addBehaviour(new CyclicBehaviour(this) {
+            private AuctionCodec.Content content = new AuctionCodec.Content();
+            private Random random = new Random();
+
+            public void action() {
+                ACLMessage msg = myAgent.receive();
+                if (msg == null) {
+                    block();
+                    return;
+                }
+                if (msg.getPerformative() != ACLMessage.CFP) {
+                    return;
+                }
+                AuctionCodec.Content cfp = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                ACLMessage reply = msg.createReply();
+                reply.setPerformative(ACLMessage.PROPOSE);
+                if (cfp.type == AuctionCodec.BATCH_CFP) {
+                    int[] bids = new int[cfp.count];
+                    for (int i = 0; i < cfp.count; i++) {
+                        bids[i] = cfp.initialPrices[i] + random.nextInt(100);
+                    }
+                    reply.setByteSequenceContent(AuctionCodec.encodeBatchBid(bids, cfp.count));
+                }
+                else if (cfp.type == AuctionCodec.UNITS_CFP) {
+                    int quantity = 1 + random.nextInt(Math.min(cfp.quantity, 10));
+                    reply.setByteSequenceContent(AuctionCodec.encodeUnitsBid(quantity, cfp.initialPrice + random.nextInt(100)));
+                }
+                else {
+                    reply.setByteSequenceContent(AuctionCodec.encodeBid(cfp.initialPrice + random.nextInt(100)));
+                }
+                myAgent.send(reply);
+            }
+        });
+    }
+
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+    }
+}
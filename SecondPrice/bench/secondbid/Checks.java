@@ -0,0 +1,386 @@
+package secondbid;
+
+import jade.core.AID;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It checks the behaviour of the parts of the auctioneer that the benchmarks measure, without a JADE platform:
+ * the round trip of every message of the codec and the rejection of every truncated message,
+ * the highest bids of a lot against a sort of all the bids (the first bidder wins a tie),
+ * the recovery of the journal after a record that was not written whole and from a record of an item without units,
+ * the chunk of the journal that a sync forces when the writer moves to the next chunk meanwhile,
+ * and a snapshot with the records after it against the whole journal.
+ * A check that fails throws an AssertionError, so the run ends with an error.
+ * Run it with: ant bench -Dbench.class=secondbid.Checks
+ */
+public class Checks {
+
+    // The number of checks that passed
+    static int passed = 0;
+
+    public static void main(String[] args) throws IOException {
+        codec();
+        topBids();
+        journal();
+        sync();
+        oldItems();
+        snapshots();
+        System.out.println(passed + " checks passed");
+    }
+
+    // It fails if the condition does not hold
+    static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+        passed++;
+    }
+
+    // Every message is decoded as it was encoded, and every shorter copy of it is rejected
+    private static void codec() {
+        String name = "Vase, blue \u00fc\u20ac";
+        AuctionCodec.Content c = new AuctionCodec.Content();
+
+        byte[] data = AuctionCodec.encodeCfp(name, 100, 250);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.CFP && c.itemName.equals(name) && c.initialPrice == 100 && c.previousPrice == 250, "CFP");
+        truncated(data);
+
+        data = AuctionCodec.encodeBid(Integer.MAX_VALUE);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.BID && c.price == Integer.MAX_VALUE, "BID");
+        truncated(data);
+
+        data = AuctionCodec.encodeOrder(name, 1234);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ORDER && c.itemName.equals(name) && c.price == 1234, "ORDER");
+        truncated(data);
+
+        data = AuctionCodec.encodeItem("", 5);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ITEM && c.itemName.isEmpty() && c.initialPrice == 5, "ITEM with an empty name");
+        truncated(data);
+
+        data = AuctionCodec.encodeResult(name, 300, "bidder@platform");
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.RESULT && c.itemName.equals(name) && c.price == 300 && c.winner.equals("bidder@platform"),
+                "RESULT");
+        truncated(data);
+
+        data = AuctionCodec.encodeAck(3, 2);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.ACK && c.status == AuctionCodec.ACK_PARTIAL && c.accepted == 3 && c.rejected == 2, "ACK");
+        truncated(data);
+        check(AuctionCodec.ackStatus(1, 0) == AuctionCodec.ACK_ACCEPTED && AuctionCodec.ackStatus(0, 1) == AuctionCodec.ACK_REJECTED,
+                "status of an acknowledgement");
+
+        data = AuctionCodec.encodeUnitsCfp(name, 100, 5);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.UNITS_CFP && c.itemName.equals(name) && c.initialPrice == 100 && c.quantity == 5, "UNITS_CFP");
+        truncated(data);
+
+        data = AuctionCodec.encodeUnitsBid(2, 140);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.UNITS_BID && c.quantity == 2 && c.price == 140, "UNITS_BID");
+        truncated(data);
+
+        data = AuctionCodec.encodeUnitsOrder(name, 120, 3);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.UNITS_ORDER && c.itemName.equals(name) && c.price == 120 && c.quantity == 3, "UNITS_ORDER");
+        truncated(data);
+
+        // A batch after a smaller one, so the arrays of the content grow
+        String[] names = { "a", name, "c, d" };
+        int[] initial = { 1, 2, 3 };
+        int[] previous = { 10, 20, 30 };
+        AuctionCodec.decode(AuctionCodec.encodeBatchCfp(names, initial, previous, 1), c);
+        data = AuctionCodec.encodeBatchCfp(names, initial, previous, 3);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.BATCH_CFP && c.count == 3 && Arrays.equals(Arrays.copyOf(c.itemNames, 3), names)
+                && Arrays.equals(Arrays.copyOf(c.initialPrices, 3), initial)
+                && Arrays.equals(Arrays.copyOf(c.previousPrices, 3), previous), "BATCH_CFP");
+        truncated(data);
+
+        int[] prices = { 5, -1, 7, 8, -1, 9 };
+        data = AuctionCodec.encodeBatchBid(prices, 3);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.BATCH_BID && c.count == 3 && Arrays.equals(Arrays.copyOf(c.prices, 3), Arrays.copyOf(prices, 3)),
+                "BATCH_BID");
+        truncated(data);
+
+        data = AuctionCodec.encodeHostBid(prices, 3);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.HOST_BID && c.count == 3 && Arrays.equals(Arrays.copyOf(c.prices, 6), prices), "HOST_BID");
+        truncated(data);
+
+        data = AuctionCodec.encodeBatchBid(prices, 0);
+        AuctionCodec.decode(data, c);
+        check(c.type == AuctionCodec.BATCH_BID && c.count == 0, "an empty BATCH_BID");
+
+        // A content of another version or of an unknown type
+        data = AuctionCodec.encodeBid(1);
+        data[0] = AuctionCodec.VERSION + 1;
+        rejected(data, "a content of another version");
+        data = AuctionCodec.encodeBid(1);
+        data[1] = 99;
+        rejected(data, "a content of an unknown type");
+        rejected(null, "a missing content");
+    }
+
+    // Every copy of the message without its last bytes is rejected
+    private static void truncated(byte[] data) {
+        for (int length = 0; length < data.length; length++) {
+            rejected(Arrays.copyOf(data, length), "a content of " + length + " of " + data.length + " bytes");
+        }
+    }
+
+    private static void rejected(byte[] data, String what) {
+        try {
+            AuctionCodec.decode(data, new AuctionCodec.Content());
+        }
+        catch (IllegalArgumentException e) {
+            passed++;
+            return;
+        }
+        throw new AssertionError(what + " is decoded");
+    }
+
+    // The highest bids are the first bids of a stable sort from the highest price, so the first bidder wins a tie
+    private static void topBids() {
+        AID a = new AID("a@bench", AID.ISGUID);
+        AID b = new AID("b@bench", AID.ISGUID);
+        AID c = new AID("c@bench", AID.ISGUID);
+        TopBids top = new TopBids(2);
+        top.offer(100, a);
+        top.offer(100, b);
+        top.offer(100, c);
+        check(top.winner() == a && top.bidder(1) == b && top.secondPrice() == 100 && top.offered() == 3,
+                "a tie of three bids");
+        top.offer(101, c);
+        check(top.winner() == c && top.bidder(1) == a && top.secondPrice() == 100, "a higher bid after a tie");
+        top.clear();
+        check(top.winner() == null && top.size() == 0 && top.secondPrice() == 0, "no bids");
+        top.offer(50, b);
+        check(top.winner() == b && top.secondPrice() == 50, "one bid pays its price");
+
+        AID[] bidders = new AID[20];
+        for (int i = 0; i < bidders.length; i++) {
+            bidders[i] = new AID("b" + i + "@bench", AID.ISGUID);
+        }
+        Random random = new Random(11);
+        for (int round = 0; round < 2000; round++) {
+            int k = 1 + random.nextInt(4);
+            top = new TopBids(k);
+            List<Integer> order = new ArrayList<>();
+            int[] offers = new int[random.nextInt(bidders.length)];
+            for (int i = 0; i < offers.length; i++) {
+                offers[i] = random.nextInt(5);
+                top.offer(offers[i], bidders[i]);
+                order.add(i);
+            }
+            final int[] price = offers;
+            Collections.sort(order, new Comparator<Integer>() {
+                public int compare(Integer x, Integer y) {
+                    return Integer.compare(price[y], price[x]);
+                }
+            });
+            check(top.size() == Math.min(k, offers.length) && top.offered() == offers.length, "the number of bids of round " + round);
+            for (int i = 0; i < top.size(); i++) {
+                check(top.price(i) == offers[order.get(i)] && top.bidder(i) == bidders[order.get(i)],
+                        "bid " + i + " of round " + round);
+            }
+        }
+    }
+
+    // A record that was not written whole ends the journal, and the next record is written in its place
+    private static void journal() throws IOException {
+        for (int torn = 0; torn < 2; torn++) {
+            File file = File.createTempFile("journal", ".log");
+            file.deleteOnExit();
+            String path = file.getPath();
+
+            BidJournal journal = BidJournal.open(path, 0, 0, null);
+            journal.item("Chair", 100, 5);
+            journal.bid("Chair", 120, "b1");
+            journal.units("Chair", 110, 2, "b1");
+            long last = journal.getWritten();
+            journal.units("Chair", 110, 1, "b2");
+            journal.close();
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (torn == 0) {
+                    // The length was not written yet
+                    raf.seek(last);
+                    raf.writeInt(0);
+                }
+                else {
+                    // A byte of the record was not written, so its CRC does not match
+                    raf.seek(last + 12);
+                    raf.write(raf.read() ^ 0x5A);
+                }
+            }
+
+            State state = new State();
+            journal = BidJournal.open(path, 0, 0, state);
+            check(journal.getRecovered() == 3 && state.toString().equals("{Chair=[100, 3, 120]}"),
+                    "recovery before a torn record: " + state);
+            journal.units("Chair", 110, 3, "b3");
+            journal.close();
+
+            state = new State();
+            journal = BidJournal.open(path, 0, 0, state);
+            journal.close();
+            check(journal.getRecovered() == 4 && state.toString().equals("{}"), "a record after a torn record: " + state);
+        }
+    }
+
+    // A record of an item that was written before there were items of many units is an item of one unit
+    private static void oldItems() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        file.deleteOnExit();
+
+        byte[] name = "Lamp".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + name.length + 4 + 2);
+        record.put(BidJournal.ITEM).putShort((short) name.length).put(name).putInt(40).putShort((short) 0);
+        CRC32 crc = new CRC32();
+        crc.update(record.array());
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(record.capacity());
+            out.writeInt((int) crc.getValue());
+            out.write(record.array());
+        }
+
+        State state = new State();
+        BidJournal.open(file.getPath(), 0, 0, state).close();
+        check(state.toString().equals("{Lamp=[40, 1]}"), "an item without units: " + state);
+    }
+
+    // A sync forces the chunk that holds the records it marks as synced, even if the writer fills that chunk meanwhile
+    private static void sync() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        file.deleteOnExit();
+
+        final BidJournal journal = BidJournal.open(file.getPath(), 0, 0, null);
+        journal.bid("a", 1, "b1");
+        MappedByteBuffer forced = journal.sync(new Runnable() {
+            public void run() {
+                // The writer moves to the next chunk between the full chunks and the chunk that is written now
+                long chunk = journal.getWritten() / BidJournal.CHUNK_SIZE;
+                while (journal.getWritten() / BidJournal.CHUNK_SIZE == chunk) {
+                    journal.bid("next", 2, "b2");
+                }
+            }
+        });
+        // The name of the first record of a chunk starts after its length, its CRC, its type and the length of the name
+        check(forced != null && forced.get(11) == 'a', "the chunk of the first record is forced");
+        forced = journal.sync(null);
+        check(forced != null && forced.get(11) == 'n', "the next sync forces the next chunk");
+        check(journal.sync(null) == null, "nothing to force");
+        journal.close();
+    }
+
+    // A snapshot and the records of the journal after it give the state of the whole journal
+    private static void snapshots() throws IOException {
+        File file = File.createTempFile("journal", ".log");
+        File snapshot = new File(file.getPath() + ".snap");
+        file.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        BidJournal journal = BidJournal.open(file.getPath(), 0, 0, null);
+        Snapshots snapshots = new Snapshots(snapshot.getPath());
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            String name = "item" + random.nextInt(50);
+            int r = random.nextInt(10);
+            if (r < 2) {
+                journal.item(name, random.nextInt(1000), 1 + random.nextInt(5));
+            }
+            else if (r < 7) {
+                journal.bid(name, random.nextInt(2000), "b" + random.nextInt(5));
+            }
+            else if (r < 8) {
+                journal.units(name, random.nextInt(2000), 1 + random.nextInt(2), "b" + random.nextInt(5));
+            }
+            else if (r < 9) {
+                journal.sold(name, random.nextInt(2000), "b" + random.nextInt(5));
+            }
+            else {
+                journal.removed(name);
+            }
+            if (i == 1000) {
+                snapshots.take(journal);
+            }
+        }
+        journal.close();
+
+        State whole = new State();
+        BidJournal.open(file.getPath(), 0, 0, whole).close();
+
+        Snapshots loaded = Snapshots.load(snapshot.getPath());
+        check(loaded.getPosition() > 0 && loaded.getPosition() < file.length(), "the position of the snapshot");
+        State restored = new State();
+        loaded.restore(restored);
+        BidJournal.open(file.getPath(), 0, loaded.getPosition(), restored).close();
+        check(restored.toString().equals(whole.toString()), "snapshot and replay: " + restored + " instead of " + whole);
+    }
+
+    /**
+    *   The catalogue that the records of a journal build: every item with its price, its units and then its bids.
+    */
+    static class State implements BidJournal.Records {
+        private final LinkedHashMap<String,List<Integer>> items = new LinkedHashMap<>();
+
+        public void item(String name, int price, int quantity) {
+            List<Integer> item = items.get(name);
+            if (item != null) {
+                item.set(0, price);
+                item.set(1, quantity);
+            }
+            else {
+                items.put(name, new ArrayList<>(Arrays.asList(price, quantity)));
+            }
+        }
+
+        public void bid(String name, int price, String bidder) {
+            List<Integer> item = items.get(name);
+            if (item != null) {
+                item.add(price);
+            }
+        }
+
+        public void sold(String name, int price, String winner) {
+            items.remove(name);
+        }
+
+        public void units(String name, int price, int quantity, String winner) {
+            List<Integer> item = items.get(name);
+            if (item != null) {
+                item.set(1, item.get(1) - quantity);
+                if (item.get(1) <= 0) {
+                    items.remove(name);
+                }
+            }
+        }
+
+        public void removed(String name) {
+            items.remove(name);
+        }
+
+        public String toString() {
+            return items.toString();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package secondbid;
+
+import jade.core.AID;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The microbenchmarks of the paths that run for every bid and every lot, without a JADE platform:
+ * adding a bid to the ledger, counting the metrics of a bid and of a lot, a message that the log drops,
+ * writing a bid to the journal, the first item and the price of an item in the catalogue,
+ * the winner and the second price of a lot, the winners and the price of a lot of many units,
+ * reading a CFP and drawing the raise of a bidder.
+ * Every benchmark prints its operations per second and the bytes it allocates per operation.
+ * Run it with: ant bench -Dbench.class=secondbid.HotPathBenchmark
+ */
+public class HotPathBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        final int items = 10000;
+        final String[] names = new String[items];
+        for (int i = 0; i < items; i++) {
+            names[i] = "Antique vase number " + i;
+        }
+
+        // Bid ingestion, as in ReceiveBids when every bid is kept
+        final BidLedger ledger = new BidLedger();
+        new Bench("ledger add bid") {
+            BidLedger.Bids bids = ledger.open(names[0]);
+            long op(int i) {
+                if ((i & 0xFFFF) == 0) {
+                    // Close the lot and open the next one, so the arrays come from the pool
+                    ledger.remove(names[0]);
+                    bids = ledger.open(names[0]);
+                }
+                bids.add(1000 + (i & 1023));
+                return bids.size();
+            }
+        }.run();
+
+        // The metrics of a bid and of a lot, as in ReceiveBids and closeLot
+        final AuctioneerMetrics metrics = new AuctioneerMetrics();
+        new Bench("metrics bid received") {
+            long op(int i) {
+                metrics.bidReceived();
+                return i;
+            }
+        }.run();
+        new Bench("metrics lot closed") {
+            long op(int i) {
+                metrics.lotClosed((i & 1) == 0, 1000L * (i & 4095));
+                return i;
+            }
+        }.run();
+
+        // A message of the bid path below the level of the log, as in ReceiveBids
+        AuctionLog.setLevel(AuctionLog.INFO);
+        new Bench("log debug message, level info") {
+            long op(int i) {
+                AuctionLog.debug("{} sent bid with price {}.", names[i % items], 1000 + (i & 1023));
+                return i;
+            }
+        }.run();
+
+        // A bid that is kept, written to the journal with the group commit of every 10 ms
+        File file = File.createTempFile("journal", ".bin");
+        final BidJournal journal = BidJournal.open(file.getPath(), 10, 0, null);
+        new Bench("journal bid") {
+            long op(int i) {
+                journal.bid(names[i % items], 1000 + (i & 1023), "bidder-1@bench");
+                return i;
+            }
+        }.run();
+        journal.close();
+        file.delete();
+
+        // The catalogue of the auctioneer
+        final Catalogue catalogue = new Catalogue();
+        for (int i = 0; i < items; i++) {
+            catalogue.put(names[i], 1000 + i);
+        }
+        new Bench("catalogue first item (getFirstItemName)") {
+            long op(int i) {
+                return catalogue.peek().name.length();
+            }
+        }.run();
+        new Bench("catalogue price (getItemInitialPrice)") {
+            long op(int i) {
+                return catalogue.price(names[i % items]);
+            }
+        }.run();
+        new Bench("catalogue next item and requeue") {
+            long op(int i) {
+                Catalogue.Item item = catalogue.poll();
+                catalogue.requeue(item.name);
+                return item.price;
+            }
+        }.run();
+
+        // The winner and the second price of a lot of 8 bids, as in AnnounceWinner2
+        final AID[] bidders = new AID[8];
+        for (int j = 0; j < bidders.length; j++) {
+            bidders[j] = new AID("bidder-" + j + "@bench", AID.ISGUID);
+        }
+        final TopBids topBids = new TopBids(2);
+        new Bench("second price of 8 bids") {
+            long op(int i) {
+                topBids.clear();
+                for (int j = 0; j < bidders.length; j++) {
+                    topBids.offer(1000 + ((i + j * 37) & 1023), bidders[j]);
+                }
+                return topBids.secondPrice() + topBids.winner().hashCode();
+            }
+        }.run();
+
+        // The winners and the clearing price of a lot of 500 units with 1000 bids, as in announceUnits
+        final AID[] unitBidders = new AID[1000];
+        for (int j = 0; j < unitBidders.length; j++) {
+            unitBidders[j] = new AID("bidder-" + j + "@bench", AID.ISGUID);
+        }
+        final UnitBids unitBids = new UnitBids(500);
+        new Bench("clearing price of 500 units, 1000 bids") {
+            long op(int i) {
+                unitBids.clear();
+                for (int j = 0; j < unitBidders.length; j++) {
+                    unitBids.offer(1000 + ((i + j * 37) & 1023), 1 + (j & 3), unitBidders[j]);
+                }
+                return unitBids.clearingPrice(1000) + unitBids.size();
+            }
+        }.run();
+
+        // Reading a CFP, as in ReceiveCFPAs
+        final byte[][] cfps = new byte[64][];
+        for (int j = 0; j < cfps.length; j++) {
+            cfps[j] = AuctionCodec.encodeCfp(names[j], 1000 + j, 0);
+        }
+        final String[] batchNames = Arrays.copyOf(names, 16);
+        final int[] batchPrices = new int[16];
+        final byte[] batchCfp = AuctionCodec.encodeBatchCfp(batchNames, batchPrices, batchPrices, 16);
+        final AuctionCodec.Content content = new AuctionCodec.Content();
+        new Bench("cfp decode") {
+            long op(int i) {
+                AuctionCodec.decode(cfps[i & 63], content);
+                return content.itemName.length() + content.initialPrice;
+            }
+        }.run();
+        new Bench("batch cfp decode (16 lots)") {
+            long op(int i) {
+                AuctionCodec.decode(batchCfp, content);
+                return content.count;
+            }
+        }.run();
+
+        // The raise of a bidder
+        final Random random = new Random(42);
+        new Bench("showRandomInteger") {
+            long op(int i) {
+                return RandomInteger.showRandomInteger(1, 1000 + (i & 1023), random);
+            }
+        }.run();
+    }
+}
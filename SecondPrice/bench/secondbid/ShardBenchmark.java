@@ -0,0 +1,95 @@
+package secondbid;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+import java.util.concurrent.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The scaling test of the cluster of auctioneers.
+ * For every number of shards it boots a JADE platform in this JVM, with every shard in its own container,
+ * gives the front a number of items and measures the lots sold per second until all of them are sold.
+ * Settings: -Dbench.shards=1,2,4 -Dbench.lots=2000 -Dbench.bidders=4 -Dbench.batch=1 -Dbench.port=1299
+ * With -Dbench.hosted=N the bidders are N bidders of one BidderHost instead of BenchBidder agents.
+ */
+public class ShardBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] shardCounts = System.getProperty("bench.shards", "1,2,4").split(",");
+        int lots = Integer.getInteger("bench.lots", 2000);
+        int bidders = Integer.getInteger("bench.bidders", 4);
+        int batch = Integer.getInteger("bench.batch", 1);
+        int port = Integer.getInteger("bench.port", 1299);
+        int hosted = Integer.getInteger("bench.hosted", 0);
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(false);
+
+        System.out.println("shards      lots/s");
+        for (String count : shardCounts) {
+            int shards = Integer.parseInt(count.trim());
+            double rate = run(rt, port++, shards, lots, bidders, hosted, batch);
+            System.out.println(String.format("%6d  %10.1f", shards, rate));
+        }
+        System.exit(0);
+    }
+
+    // It runs the cluster with the given number of shards and returns the lots sold per second
+    private static double run(Runtime rt, int port, int shards, int lots, int bidders, int hosted, int batch) throws Exception {
+        // The agents log every step of the auction, which would be measured instead of the auction (-Dauction.log=info to measure it too)
+        AuctionLog.setLevel(AuctionLog.parseLevel(System.getProperty("auction.log", "off")));
+        ContainerController main = null;
+        try {
+            main = rt.createMainContainer(new ProfileImpl(null, port, null));
+
+            for (int i = 0; i < shards; i++) {
+                Profile profile = new ProfileImpl(null, port, null);
+                profile.setParameter(Profile.CONTAINER_NAME, "shards-" + i);
+                ContainerController container = rt.createAgentContainer(profile);
+                container.createNewAgent("shard-" + i, "secondbid.Auctioneer",
+                        new Object[] {"headless", "front=front", "acks=none", "batch=" + batch}).start();
+            }
+            if (hosted > 0) {
+                main.createNewAgent("host", "secondbid.BidderHost", new Object[] {"bidders=" + hosted}).start();
+            }
+            else {
+                for (int i = 0; i < bidders; i++) {
+                    main.createNewAgent("bidder-" + i, "secondbid.BenchBidder", null).start();
+                }
+            }
+            CountDownLatch sold = new CountDownLatch(lots);
+            AgentController front = main.createNewAgent("front", "secondbid.AuctionFront",
+                    new Object[] {"shards=" + shards, sold});
+            front.start();
+
+            // Let the bidders register and the shards find them
+            Thread.sleep(2000);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < lots; i++) {
+                front.putO2AObject(new Catalogue.Item("item-" + i, 10), AgentController.ASYNC);
+            }
+            if (!sold.await(10, TimeUnit.MINUTES)) {
+                System.out.println("Only " + (lots - sold.getCount()) + " of " + lots + " lots were sold in time.");
+            }
+            long elapsed = System.nanoTime() - start;
+            return (lots - sold.getCount()) * 1e9 / elapsed;
+        }
+        finally {
+            if (main != null) {
+                main.kill();
+            }
+            AuctionLog.flush();
+        }
+    }
+}
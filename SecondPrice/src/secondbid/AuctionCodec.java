@@ -0,0 +1,435 @@
+package secondbid;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The binary content of the messages of the auction, used by both the auctioneer and the bidders.
+ * It is sent as the byte sequence content of the ACL message:
+ * one byte for the version, one byte for the type of the message and then the fields of the type.
+ * A name is written as its length in bytes (2 bytes) followed by its UTF-8 bytes, so it may contain commas,
+ * and a price is written as 4 bytes.
+ * A batch carries many lots in one message: the number of lots (2 bytes) and then the fields of every lot.
+ * In a batch of bids the price of a lot is -1 if the bidder does not join it.
+ * <pre>
+ *   CFP       : version, type, name, initial price, previous price
+ *   BID       : version, type, price
+ *   ORDER     : version, type, name, price
+ *   BATCH_CFP : version, type, count, count x (name, initial price, previous price)
+ *   BATCH_BID : version, type, count, count x price
+ *   ACK       : version, type, status, accepted bids, rejected bids
+ *   ITEM      : version, type, name, initial price
+ *   RESULT    : version, type, name, price, name of the winner
+ *   HOST_BID  : version, type, count, count x (highest price, second price)
+ *   UNITS_CFP : version, type, name, initial price, quantity
+ *   UNITS_BID : version, type, quantity, price
+ *   UNITS_ORDER : version, type, name, price, quantity
+ * </pre>
+ */
+final class AuctionCodec {
+
+    // The version of the format
+    public static final byte VERSION = 1;
+
+    // The types of the messages
+    public static final byte CFP = 1;
+    public static final byte BID = 2;
+    public static final byte ORDER = 3;
+    public static final byte BATCH_CFP = 4;
+    public static final byte BATCH_BID = 5;
+    public static final byte ACK = 6;
+    public static final byte ITEM = 7;
+    public static final byte RESULT = 8;
+    public static final byte HOST_BID = 9;
+    public static final byte UNITS_CFP = 12;
+    public static final byte UNITS_BID = 13;
+    public static final byte UNITS_ORDER = 14;
+
+    // The status of an acknowledgement: all the bids were kept, some of them or none of them
+    public static final byte ACK_ACCEPTED = 0;
+    public static final byte ACK_PARTIAL = 1;
+    public static final byte ACK_REJECTED = 2;
+
+    // The most lots in a batch
+    public static final int MAX_BATCH = 0xFFFF;
+
+    // The longest name, in UTF-8 bytes, that fits in the length field
+    public static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    /**
+    *   The decoded content of a message. It can be used again for every message.
+    */
+    static final class Content {
+        public byte type;
+        public String itemName;
+        public int initialPrice;
+        public int previousPrice;
+        public int price;
+
+        // The number of units of a lot of many identical units, of a bid for some of them or of an order
+        public int quantity;
+
+        // The winner of a result
+        public String winner;
+
+        // The acknowledgement of bids
+        public byte status;
+        public int accepted;
+        public int rejected;
+
+        // The lots of a batch; the arrays grow as needed and only the first count entries are valid
+        public int count;
+        public String[] itemNames = new String[0];
+        public int[] initialPrices = new int[0];
+        public int[] previousPrices = new int[0];
+        public int[] prices = new int[0];
+
+        // Make the arrays of the batch big enough for n lots
+        private void ensureCapacity(int n) {
+            if (itemNames.length < n) {
+                itemNames = new String[n];
+                initialPrices = new int[n];
+                previousPrices = new int[n];
+                prices = new int[n];
+            }
+        }
+    }
+
+    private AuctionCodec() {
+    }
+
+    /**
+    *   It encodes a call for proposals for an item.
+    */
+    public static byte[] encodeCfp(String itemName, int initialPrice, int previousPrice) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4];
+        int off = header(data, CFP);
+        off = putName(data, off, name);
+        off = putInt(data, off, initialPrice);
+        putInt(data, off, previousPrice);
+        return data;
+    }
+
+    /**
+    *   It encodes a call for proposals for a lot of many identical units, that are sold in one round at one price.
+    */
+    public static byte[] encodeUnitsCfp(String itemName, int initialPrice, int quantity) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4];
+        int off = header(data, UNITS_CFP);
+        off = putName(data, off, name);
+        off = putInt(data, off, initialPrice);
+        putInt(data, off, quantity);
+        return data;
+    }
+
+    /**
+    *   It encodes a bid for a number of units of a lot, with the price of every unit.
+    */
+    public static byte[] encodeUnitsBid(int quantity, int price) {
+        byte[] data = new byte[2 + 4 + 4];
+        int off = header(data, UNITS_BID);
+        off = putInt(data, off, quantity);
+        putInt(data, off, price);
+        return data;
+    }
+
+    /**
+    *   It encodes the order that is sent to a winner of a lot of many units: the units it won and the price of every unit.
+    */
+    public static byte[] encodeUnitsOrder(String itemName, int price, int quantity) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 4];
+        int off = header(data, UNITS_ORDER);
+        off = putName(data, off, name);
+        off = putInt(data, off, price);
+        putInt(data, off, quantity);
+        return data;
+    }
+
+    /**
+    *   It encodes a bid.
+    */
+    public static byte[] encodeBid(int price) {
+        byte[] data = new byte[2 + 4];
+        putInt(data, header(data, BID), price);
+        return data;
+    }
+
+    /**
+    *   It encodes the order that is sent to the winner of an item.
+    */
+    public static byte[] encodeOrder(String itemName, int price) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ORDER);
+        off = putName(data, off, name);
+        putInt(data, off, price);
+        return data;
+    }
+
+    /**
+    *   It encodes an item for sale, that is sent to the auctioneer that sells it.
+    */
+    public static byte[] encodeItem(String itemName, int initialPrice) {
+        byte[] name = nameBytes(itemName);
+        byte[] data = new byte[2 + 2 + name.length + 4];
+        int off = header(data, ITEM);
+        off = putName(data, off, name);
+        putInt(data, off, initialPrice);
+        return data;
+    }
+
+    /**
+    *   It encodes the result of a sale: the item, the price and the winner.
+    */
+    public static byte[] encodeResult(String itemName, int price, String winner) {
+        byte[] name = nameBytes(itemName);
+        byte[] winnerName = nameBytes(winner);
+        byte[] data = new byte[2 + 2 + name.length + 4 + 2 + winnerName.length];
+        int off = header(data, RESULT);
+        off = putName(data, off, name);
+        off = putInt(data, off, price);
+        putName(data, off, winnerName);
+        return data;
+    }
+
+    /**
+    *   It encodes the acknowledgement of the bids of a bidder, with its status and the number of bids
+    *   that were kept and that were not kept.
+    */
+    public static byte[] encodeAck(int accepted, int rejected) {
+        byte[] data = new byte[2 + 1 + 4 + 4];
+        int off = header(data, ACK);
+        data[off] = ackStatus(accepted, rejected);
+        off = putInt(data, off + 1, accepted);
+        putInt(data, off, rejected);
+        return data;
+    }
+
+    /**
+    *   It returns the status of an acknowledgement with these numbers of kept and not kept bids.
+    */
+    public static byte ackStatus(int accepted, int rejected) {
+        if (rejected == 0) {
+            return ACK_ACCEPTED;
+        }
+        return accepted > 0 ? ACK_PARTIAL : ACK_REJECTED;
+    }
+
+    /**
+    *   It encodes a call for proposals for the first count lots of the arrays.
+    */
+    public static byte[] encodeBatchCfp(String[] itemNames, int[] initialPrices, int[] previousPrices, int count) {
+        checkBatch(count);
+        byte[][] names = new byte[count][];
+        int length = 2 + 2;
+        for (int i = 0; i < count; i++) {
+            names[i] = nameBytes(itemNames[i]);
+            length += 2 + names[i].length + 4 + 4;
+        }
+        byte[] data = new byte[length];
+        int off = header(data, BATCH_CFP);
+        off = putCount(data, off, count);
+        for (int i = 0; i < count; i++) {
+            off = putName(data, off, names[i]);
+            off = putInt(data, off, initialPrices[i]);
+            off = putInt(data, off, previousPrices[i]);
+        }
+        return data;
+    }
+
+    /**
+    *   It encodes the bids for the first count lots of a batch, -1 for a lot that the bidder does not join.
+    */
+    public static byte[] encodeBatchBid(int[] prices, int count) {
+        checkBatch(count);
+        byte[] data = new byte[2 + 2 + 4 * count];
+        int off = header(data, BATCH_BID);
+        off = putCount(data, off, count);
+        for (int i = 0; i < count; i++) {
+            off = putInt(data, off, prices[i]);
+        }
+        return data;
+    }
+
+    /**
+    *   It encodes the two highest bids of a host of many bidders for the first count lots of a batch.
+    *   The prices hold the highest and the second price of every lot, -1 for a bid that is missing.
+    */
+    public static byte[] encodeHostBid(int[] prices, int count) {
+        checkBatch(count);
+        byte[] data = new byte[2 + 2 + 8 * count];
+        int off = header(data, HOST_BID);
+        off = putCount(data, off, count);
+        for (int i = 0; i < 2 * count; i++) {
+            off = putInt(data, off, prices[i]);
+        }
+        return data;
+    }
+
+    /**
+    *   It decodes the content of a message into the given content and returns it.
+    *   The fields that the type does not have are left as they were.
+    *   @throws IllegalArgumentException if the content is missing, truncated or of another version
+    */
+    public static Content decode(byte[] data, Content into) {
+        if (data == null || data.length < 2) {
+            throw new IllegalArgumentException("The content is empty!");
+        }
+        if (data[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown version " + data[0] + " of the content!");
+        }
+        try {
+            into.type = data[1];
+            int off = 2;
+            switch (into.type) {
+                case CFP:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    into.previousPrice = getInt(data, off + 4);
+                    break;
+                case UNITS_CFP:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    into.quantity = getInt(data, off + 4);
+                    break;
+                case BID:
+                    into.price = getInt(data, off);
+                    break;
+                case UNITS_BID:
+                    into.quantity = getInt(data, off);
+                    into.price = getInt(data, off + 4);
+                    break;
+                case ORDER:
+                    off = readName(data, off, into);
+                    into.price = getInt(data, off);
+                    break;
+                case UNITS_ORDER:
+                    off = readName(data, off, into);
+                    into.price = getInt(data, off);
+                    into.quantity = getInt(data, off + 4);
+                    break;
+                case BATCH_CFP:
+                    into.count = getCount(data, off);
+                    into.ensureCapacity(into.count);
+                    off += 2;
+                    for (int i = 0; i < into.count; i++) {
+                        off = readName(data, off, into);
+                        into.itemNames[i] = into.itemName;
+                        into.initialPrices[i] = getInt(data, off);
+                        into.previousPrices[i] = getInt(data, off + 4);
+                        off += 8;
+                    }
+                    break;
+                case BATCH_BID:
+                    into.count = getCount(data, off);
+                    into.ensureCapacity(into.count);
+                    off += 2;
+                    for (int i = 0; i < into.count; i++) {
+                        into.prices[i] = getInt(data, off);
+                        off += 4;
+                    }
+                    break;
+                case HOST_BID:
+                    into.count = getCount(data, off);
+                    into.ensureCapacity(2 * into.count);
+                    off += 2;
+                    for (int i = 0; i < 2 * into.count; i++) {
+                        into.prices[i] = getInt(data, off);
+                        off += 4;
+                    }
+                    break;
+                case ITEM:
+                    off = readName(data, off, into);
+                    into.initialPrice = getInt(data, off);
+                    break;
+                case RESULT:
+                    off = readName(data, off, into);
+                    String itemName = into.itemName;
+                    into.price = getInt(data, off);
+                    readName(data, off + 4, into);
+                    into.winner = into.itemName;
+                    into.itemName = itemName;
+                    break;
+                case ACK:
+                    into.status = data[off];
+                    into.accepted = getInt(data, off + 1);
+                    into.rejected = getInt(data, off + 5);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown type " + into.type + " of the content!");
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("The content is truncated!");
+        }
+        return into;
+    }
+
+    private static byte[] nameBytes(String itemName) {
+        byte[] name = itemName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("The name of the item is too long!");
+        }
+        return name;
+    }
+
+    private static void checkBatch(int count) {
+        if (count < 0 || count > MAX_BATCH) {
+            throw new IllegalArgumentException("A batch has from 0 to " + MAX_BATCH + " lots!");
+        }
+    }
+
+    private static int putCount(byte[] data, int off, int count) {
+        data[off] = (byte)(count >>> 8);
+        data[off + 1] = (byte)count;
+        return off + 2;
+    }
+
+    private static int getCount(byte[] data, int off) {
+        return ((data[off] & 0xFF) << 8) | (data[off + 1] & 0xFF);
+    }
+
+    private static int header(byte[] data, byte type) {
+        data[0] = VERSION;
+        data[1] = type;
+        return 2;
+    }
+
+    private static int putName(byte[] data, int off, byte[] name) {
+        data[off] = (byte)(name.length >>> 8);
+        data[off + 1] = (byte)name.length;
+        System.arraycopy(name, 0, data, off + 2, name.length);
+        return off + 2 + name.length;
+    }
+
+    private static int readName(byte[] data, int off, Content into) {
+        int length = ((data[off] & 0xFF) << 8) | (data[off + 1] & 0xFF);
+        if (off + 2 + length > data.length) {
+            throw new ArrayIndexOutOfBoundsException(off + 2 + length);
+        }
+        into.itemName = new String(data, off + 2, length, StandardCharsets.UTF_8);
+        return off + 2 + length;
+    }
+
+    private static int putInt(byte[] data, int off, int value) {
+        data[off] = (byte)(value >>> 24);
+        data[off + 1] = (byte)(value >>> 16);
+        data[off + 2] = (byte)(value >>> 8);
+        data[off + 3] = (byte)value;
+        return off + 4;
+    }
+
+    private static int getInt(byte[] data, int off) {
+        return ((data[off] & 0xFF) << 24) | ((data[off + 1] & 0xFF) << 16)
+                | ((data[off + 2] & 0xFF) << 8) | (data[off + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,253 @@
+package secondbid;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent that is the front of a cluster of second-price auctioneers.
+ * The items are shared among N auctioneers (shards) by a hash of their name, so every shard has its own catalogue
+ * and its own bids and the shards run in parallel. Every shard finds the bidders in the yellow pages and sends
+ * them its CFPs, so a bidder answers the shard that owns the lot. The shards report their sales to the front,
+ * that keeps one history of all the sales.
+ *
+ * The shards are Auctioneer agents with the names shard-0 ... shard-(N-1), and each of them can run in its own container:
+ * <pre>
+ *   java jade.Boot -agents "front:secondbid.AuctionFront(shards=2)"
+ *   java jade.Boot -container -agents "shard-0:secondbid.Auctioneer(headless,front=front)"
+ *   java jade.Boot -container -agents "shard-1:secondbid.Auctioneer(headless,front=front)"
+ *   java jade.Boot -container -agents "b1:secondbid.AutoBidder1;b2:secondbid.AutoBidder2"
+ * </pre>
+ * Items are sent to the front as REQUEST messages of the "catalogue" conversation,
+ * or given to it as objects (O2A) by the program that started it.
+ */
+public class AuctionFront extends Agent {
+
+    /**
+    *   A sale of the history.
+    */
+    static class Sale {
+
+        // The name of the item
+        public final String itemName;
+
+        // The price that the winner pays
+        public final int price;
+
+        // The name of the winner
+        public final String winner;
+
+        // The name of the shard that sold the item
+        public final String shard;
+
+        public Sale(String itemName, int price, String winner, String shard) {
+            this.itemName = itemName;
+            this.price = price;
+            this.winner = winner;
+            this.shard = shard;
+        }
+    }
+
+    // The shards of the cluster
+    private AID[] shards;
+
+    // The history of the sales of all the shards, in the order they were reported
+    private ArrayList<Sale> history = new ArrayList<>();
+
+    // It is counted down for every sale, if the program that started the front gave one
+    private CountDownLatch salesLatch = null;
+
+    /**
+    *    Set-up the front and the names of the shards.
+    */
+    @Override
+    protected void setup() {
+        int n = Integer.parseInt(getArgument("shards", "1"));
+        String prefix = getArgument("prefix", "shard");
+        shards = new AID[n];
+        for (int i = 0; i < n; ++i) {
+            shards[i] = new AID(prefix + "-" + i, AID.ISLOCALNAME);
+        }
+
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof CountDownLatch) {
+                    salesLatch = (CountDownLatch) arg;
+                }
+            }
+        }
+
+        // Items can be given to the front by the program that started it
+        setEnabledO2ACommunication(true, 0);
+
+        AuctionLog.info("Front {} is ready with {} shards.", getAID().getName(), n);
+
+        addBehaviour(new RouteItems(this));
+        addBehaviour(new ReceiveResults(this));
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *   It returns the shard that owns an item.
+    */
+    public AID shardOf(String itemName) {
+        return shards[(itemName.hashCode() & 0x7FFFFFFF) % shards.length];
+    }
+
+    /**
+    *   It sends an item to the shard that owns it.
+    */
+    public void route(String itemName, int initialPrice) {
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(shardOf(itemName));
+        request.setConversationId("catalogue");
+        request.setByteSequenceContent(AuctionCodec.encodeItem(itemName, initialPrice));
+        send(request);
+    }
+
+    /**
+    *   It adds a sale to the history.
+    */
+    public void addSale(Sale sale) {
+        history.add(sale);
+        AuctionLog.info("{} sold to agent {} for {} by {}.", sale.itemName, sale.winner, sale.price, sale.shard);
+        if (salesLatch != null) {
+            salesLatch.countDown();
+        }
+    }
+
+    /**
+    *   It returns the history of the sales.
+    */
+    public List<Sale> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+
+    /**
+    *    Agent clean-up operations.
+    */
+    protected void takeDown() {
+        setEnabledO2ACommunication(false, 0);
+        AuctionLog.info("Front {} terminating after {} sales.", getAID().getName(), history.size());
+    }
+}
+
+/**
+ *  It sends every item that the front receives to the shard that owns it.
+ *  An item comes as a REQUEST of the "catalogue" conversation or as a Catalogue.Item object (O2A).
+ */
+class RouteItems extends CyclicBehaviour {
+
+    private AuctionFront myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                                                     MessageTemplate.MatchConversationId("catalogue"));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public RouteItems(AuctionFront agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        boolean routed = false;
+
+        Object o;
+        while ((o = myAgent.getO2AObject()) != null) {
+            if (o instanceof Catalogue.Item) {
+                Catalogue.Item item = (Catalogue.Item) o;
+                myAgent.route(item.name, item.price);
+            }
+            routed = true;
+        }
+
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            try {
+                AuctionCodec.Content item = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                if (item.type == AuctionCodec.ITEM) {
+                    myAgent.route(item.itemName, item.initialPrice);
+                }
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The item of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            }
+            routed = true;
+        }
+
+        if (!routed) {
+            block();
+        }
+    }
+}
+
+/**
+ *  It receives the sales that the shards report and adds them to the history.
+ */
+class ReceiveResults extends CyclicBehaviour {
+
+    private AuctionFront myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                                                     MessageTemplate.MatchConversationId("auction-result"));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveResults(AuctionFront agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            try {
+                AuctionCodec.Content result = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                if (result.type == AuctionCodec.RESULT) {
+                    myAgent.addSale(new AuctionFront.Sale(result.itemName, result.price, result.winner,
+                                                          msg.getSender().getLocalName()));
+                }
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The result of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            }
+        }
+        else {
+            block();
+        }
+    }
+}
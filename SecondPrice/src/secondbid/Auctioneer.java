@@ -1,464 +1,1122 @@
-package secondbid;
-
-import jade.core.Agent;
-import jade.core.AID;
-import jade.core.behaviours.*;
-import jade.lang.acl.ACLMessage;
-import jade.lang.acl.MessageTemplate;
-import jade.domain.DFService;
-import jade.domain.FIPAException;
-import jade.domain.FIPAAgentManagement.DFAgentDescription;
-import jade.domain.FIPAAgentManagement.ServiceDescription;
-
-import java.util.*;
-
-/**
- * 
- * @author Eirini Mitsopoulou
- * @author Kyriaki-Nektaria Pantelidou
- * @author Konstantina Papadopoulou
- */
-
-/**
- * This class creates a JADE agent who performs an auctioneer of a second-price sealed-bid auction.
- */
-public class Auctioneer extends Agent {
-
-    // The catalogue of items for sale -> it maps the name of an item to its price
-    private Hashtable catalogue;
-    
-    // The catalogue of bids for each item
-    public HashMap<String,ArrayList<Integer>> priceList ;
-	
-    // The GUI through which the user can add items in the catalogue
-    private AuctioneerGUI myGUI;
-
-    // It is true if the auction has begun
-    private boolean auctionBegan = false;
-
-    // The template to receive replies
-    public MessageTemplate mt; 
-
-    // The list of bidders
-    public AID[] bidders;
-
-    // The bidder who provides the best offer
-    public AID bestBidder;
-
-    // The best offered price currently
-    public int bestPrice;
-
-    // It is true if there are bidders found
-    public boolean biddersFound = false;
-    
-    // It returns true if there is CFP sent
-    //CFP is a constant identifying the FIPA( Foundation for Intelligent Physical Agents ) performative
-    public boolean CFPSent = false;
-    
-    //It is true if there are bids received
-    public boolean bidsReceived = false;
-
-    public FindBidder p = null;
-    public SendCFP q = null;
-    
-    public ReceiveBids r = null;
-    public AnnounceWinner2 s = null;
-
-    /**
-    *    Set-up the auctioneer and the auction system.
-    */
-    @Override
-    protected void setup() {
-        priceList= new HashMap<String,ArrayList<Integer>>();
-                            
-        // show a starting message
-	System.out.println("The auctions starts!  Auctioneer "+getAID().getName()+" is ready.");
-
-	// Create the catalogue
-	catalogue = new Hashtable();
-
-	// Create and show the GUI window
-	myGUI = new AuctioneerGUI(this);
-	myGUI.showGui();
-       
-        // Add a TickerBehaviour that schedules a request to bidders every minute
-        addBehaviour(new ActionPerMinute(this));
-    }
-
-    /**
-    *    Agent clean-up operations.
-    */
-    protected void takeDown() {
-	// Close the GUI
-	myGUI.dispose();
-
-	// Show a dismissal message
-	System.out.println("Auctioneer "+getAID().getName()+" terminating.");
-    }
-
-    /**
-    *   This is invoked by the GUI when the user adds a new item for sale.
-    */
-    public void updateCatalogue(final String title, final int price) {
-        addBehaviour(
-            new OneShotBehaviour() {
-                public void action() {
-                    ArrayList<Integer> value;
-                    catalogue.put(title, new Integer(price));
-                    System.out.println(title+" is inserted into catalogue. Initial Price = "+price+ ".");
-                    if(priceList.containsKey(title)){
-                        value = priceList.get(title);                                              
-                    }
-                    else{
-                        value = new ArrayList<>();
-                    }
-
-                    priceList.put(title, value);
-
-                }                
-            }             
-        );
-    }
-
-    /**
-    *   This is invoked to delete item.
-    */
-    public Integer removeItemFromCatalogue(final String title) {
-        Integer price = null;
-        price = (Integer) catalogue.get(title);
-	addBehaviour(
-            new OneShotBehaviour() {
-                public void action() {
-                    catalogue.remove(title);
-                }
-            }
-        );
-        priceList.remove(title);
-        return price;
-    }
-
-    /**
-    *    It returns true if the catalogue is empty.
-    */
-    public boolean isCatalogueEmpty() {
-        return catalogue.isEmpty();
-    }
-
-    /**
-    *    It returns the name of the first item.
-    */
-    public String getFirstItemName() {
-        return (String)catalogue.keySet().toArray()[0];
-    }
-    
-    /**
-    *   It returns the initial price of a specific item.
-    */
-    public int getItemInitialPrice(final String title) {
-        Integer price = (Integer) catalogue.get(title);
-        if (price != null) {
-            return (int)price;
-        }
-        else {
-            return 0;
-        }
-    }
-
-}
-
-/**
- *  Add a TickerBehaviour that schedules a request to bidders every minute.
-*/
-class ActionPerMinute extends TickerBehaviour {
-
-    private Auctioneer myAgent;
-
-    private String currentItemName;
-
-    public ActionPerMinute(Auctioneer agent) {
-        super(agent, 10000);
-        myAgent = agent;
-    }
-
-    @Override
-    protected void onTick(){
-
-        // Initialize all conditions
-        myAgent.biddersFound = false;
-        myAgent.CFPSent = false;
-        myAgent.bidsReceived = false;
-        
-        // If there is any item to sell
-        if (!myAgent.isCatalogueEmpty()) {
-
-            if (myAgent.p != null) myAgent.removeBehaviour(myAgent.p);
-            if (myAgent.q != null) myAgent.removeBehaviour(myAgent.q);
-            if (myAgent.r != null) myAgent.removeBehaviour(myAgent.r);
-            if (myAgent.s != null) myAgent.removeBehaviour(myAgent.s);
-
-            currentItemName = myAgent.getFirstItemName();
-            System.out.println("Starting auction for item " + currentItemName+ ".");
-            System.out.println("Waiting for bidders...");
-
-            // Find Bidder
-            myAgent.p = new FindBidder(myAgent);
-            myAgent.addBehaviour(myAgent.p);
-                    
-            // Send CFP to all bidders
-            myAgent.q = new SendCFP(myAgent, currentItemName, myAgent.getItemInitialPrice(currentItemName));
-            myAgent.addBehaviour(myAgent.q);
-
-            // Receive all proposals/refusals from bidders and find the highest bidder
-            myAgent.r = new ReceiveBids(myAgent);
-            myAgent.addBehaviour(myAgent.r);
-            
-            // Send the request order to the bidder that provided the best offer
-            myAgent.s = new AnnounceWinner2(myAgent, currentItemName);
-            myAgent.addBehaviour(myAgent.s);
-        }        
-        else {
-			System.out.println("Add an item before we can commence auctions.");
-        }
-    }
-}
-/**
- *  It finds the bidders if any. 
-*/
-class FindBidder extends Behaviour {
-
-    private Auctioneer myAgent;
-
-    private boolean noBidder = false;
-    private boolean oneBidder = false;
-
-    public FindBidder(Auctioneer agent) {
-        super(agent);
-        myAgent = agent;
-    }
-    
-    public void action() {
-
-        if (!myAgent.biddersFound) {
-
-            // Update the list of bidders
-            DFAgentDescription template = new DFAgentDescription();
-            ServiceDescription sd = new ServiceDescription();
-            sd.setType("blind-auction");
-            template.addServices(sd);
-            try {
-                DFAgentDescription[] result = DFService.search(myAgent, template); 
-                if (result.length > 0) {
-                    System.out.println("Found the following " + result.length +" bidders:");
-                    myAgent.bidders = new AID[result.length];
-                    for (int i = 0; i < result.length; ++i) {
-                        myAgent.bidders[i] = result[i].getName();
-                        System.out.println(myAgent.bidders[i].getName());
-                    }
-                    myAgent.biddersFound = true;                    
-                }
-            }
-            catch (FIPAException fe) {
-                fe.printStackTrace();
-            }
-
-        }
-    }
-
-    public boolean done() {
-        return myAgent.biddersFound;
-    }
-}
-
-/**
-*   Send CFP to all bidders.
-*/
-class SendCFP extends Behaviour {
-
-    private Auctioneer myAgent;
-    private String itemName;
-    private int itemInitialPrice;
-
-    public SendCFP(Auctioneer agent, String itemName, int itemInitialPrice) {
-        super(agent);
-        myAgent = agent;
-        this.itemName = itemName;
-        this.itemInitialPrice = itemInitialPrice;
-    }
-    
-    public void action() {
-
-        if (!myAgent.CFPSent && myAgent.biddersFound) {
-
-            // Send the cfp to all bidders
-            System.out.println("Sending CFP to all bidders..");
-            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
-            for (int i = 0; i < myAgent.bidders.length; ++i) {
-                cfp.addReceiver(myAgent.bidders[i]);
-            } 
-            cfp.setContent(this.itemName + "," + this.itemInitialPrice);
-            cfp.setConversationId("blind-bid");
-            cfp.setReplyWith("cfp"+System.currentTimeMillis()); // Unique value
-            myAgent.send(cfp);
-
-            // Prepare message template
-            myAgent.mt = MessageTemplate.and(MessageTemplate.MatchConversationId("blind-bid"),
-                                             MessageTemplate.MatchInReplyTo(cfp.getReplyWith()));
-        
-            myAgent.CFPSent = true;
-
-        }
-    }
-
-    public boolean done() {
-        return myAgent.CFPSent;
-    }
-}
-
-/**
-*   Receive all proposals/refusals from bidders and find the highest bidder.
-*/
-class ReceiveBids extends Behaviour {
- 
-    private Auctioneer myAgent;
-    private ArrayList<Integer> value ;
-    private int repliesCnt = 0; // The counter of replies from seller agents
-
-    public ReceiveBids(Auctioneer agent) {
-        super(agent);
-        myAgent = agent;
-    }
-    
-    public void action() {
-
-        if (myAgent.CFPSent) {
-
-            // Receive all proposals/refusals from seller agents
-            ACLMessage msg = myAgent.receive(myAgent.mt);
-            if (msg != null) {
-                // Bid received
-                if (msg.getPerformative() == ACLMessage.PROPOSE) {
-
-                    // This is an offer 
-                    int price = Integer.parseInt(msg.getContent());
-                    value = myAgent.priceList.get(myAgent.getFirstItemName());
-                    if (price >= myAgent.getItemInitialPrice(myAgent.getFirstItemName())){
-                        //add the bid in the priceList
-                        value.add(price);
-                        myAgent.priceList.put(myAgent.getFirstItemName(), value);
-                    }
-                        
-                    if (myAgent.bestBidder == null || price > myAgent.bestPrice) {
-                        // This is the best offer until now
-                        myAgent.bestPrice = price;
-                        myAgent.bestBidder = msg.getSender();
-                    }
-
-                    // Inform the bidder that the bid has been received
-                    ACLMessage reply = msg.createReply();
-                    reply.setPerformative(ACLMessage.INFORM);
-                    reply.setContent("Your bid has been received!");
-                    myAgent.send(reply);           
-                }
-
-                if (msg.getPerformative() == ACLMessage.REFUSE){
-                    System.out.println(msg.getSender().getLocalName() + " is not joining this auction.");
-                }
-
-                repliesCnt++;
-            }
-            else {
-                block();
-            }
-        
-            if (repliesCnt >= myAgent.bidders.length) {
-                // We have received all bids
-                myAgent.bidsReceived = true;
-            }
-        }
-    }
-    
-    public boolean done() {
-        return myAgent.bidsReceived;
-    }
-}
-
-/**
- * It announces the winner and updates the catalogue.
- * Send the request order to the bidder that provided the best offer.
- * @condition: if there is any winner
- */
-class AnnounceWinner2 extends Behaviour {
-    private ACLMessage msgCFP;
-     
-    private Auctioneer myAgent;
-
-    private String itemName;
-
-    private boolean isDone = false;
-    private int p = 0;
-    private int max1 = 0;
-    private int max2 = 0;
-    
-    public AnnounceWinner2(Auctioneer agent, String itemName) {
-        this.itemName = itemName;
-        myAgent = agent;
-    }
-    
-    public void action() {
-        
-        if (myAgent.bidsReceived) {
-
-            if (myAgent.bestPrice >= myAgent.getItemInitialPrice(this.itemName)){
-                // Send the purchase order to the seller that provided the best offer
-                ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-                order.addReceiver(myAgent.bestBidder);
-                ArrayList<Integer> value = myAgent.priceList.get(this.itemName);
-                int size = value.size();
-                for(int i = 0; i< size; i++){//find the second maximum bid
-                    if (value.get(i) > max1){
-                        max2 = max1;
-                        max1 = value.get(i);
-                    }else if(value.get(i) > max2 && value.get(i)!=max1){
-                        max2 = value.get(i);
-                    }
-                }
-                if(max2 == 0){
-                    max2 = max1;
-                }
-                p = max2;
-                                    
-                order.setContent(this.itemName + "," + p);
-                order.setConversationId("blind-bid");
-                order.setReplyWith("order"+System.currentTimeMillis());
-
-                System.out.println("Announcing Winner for " + this.itemName + " !");
-
-                Integer price = (Integer) myAgent.removeItemFromCatalogue(this.itemName);
-                if (price != null) {
-                    System.out.println(itemName+" sold to agent "+ myAgent.bestBidder.getName() + " !");                
-                }
-                else {
-                    // The requested item has been sold to another buyer somehow
-                    order.setPerformative(ACLMessage.FAILURE);
-                    order.setContent("not-available");
-                }
-                myAgent.send(order);
-
-                // Re-Initialize all conditions
-                myAgent.biddersFound = false;
-                myAgent.CFPSent = false;
-                myAgent.bidsReceived = false;                
-                myAgent.bestPrice = 0;
-                myAgent.bestBidder = null;
-            }
-            else {
-                System.out.println("There is no winner.. Bids were insufficient!");
-            }
-            isDone = true;
-        }
-    }
-
-    public boolean done() {
-        return isDone;
-    }
+package secondbid;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.*;
+
+/**
+ * 
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who performs an auctioneer of a second-price sealed-bid auction.
+ */
+public class Auctioneer extends Agent {
+
+    // The catalogue of items for sale -> a queue of items that can also find the price of an item by its name
+    private Catalogue catalogue;
+    
+    // The catalogue of bids for each item
+    public BidLedger priceList ;
+	
+    // The GUI through which the user can add items in the catalogue
+    private AuctioneerGUI myGUI;
+
+    // It is true if the auction has begun
+    private boolean auctionBegan = false;
+
+    // The template to receive replies
+    public MessageTemplate mt; 
+
+    // The list of bidders
+    public AID[] bidders;
+
+    // The lots of the current round, that are offered to the bidders with one CFP
+    public ArrayList<Lot> lots = new ArrayList<>();
+
+    // The most lots in a round (argument "batch"); with 1 every item is auctioned on its own
+    public int batchSize = 1;
+
+    // It is true if every bid is kept in the priceList and not only the two highest (argument "keep-bids")
+    public boolean keepAllBids = false;
+
+    // The bidders that are registered in the yellow pages, updated by the DF
+    public BidderDirectory directory;
+
+    // It is true if there are bidders found
+    public boolean biddersFound = false;
+    
+    // It returns true if there is CFP sent
+    //CFP is a constant identifying the FIPA( Foundation for Intelligent Physical Agents ) performative
+    public boolean CFPSent = false;
+    
+    //It is true if there are bids received
+    public boolean bidsReceived = false;
+
+    public FindBidder p = null;
+    public SendCFP q = null;
+    
+    public ReceiveBids r = null;
+    public AnnounceWinner2 s = null;
+
+    // It is true while a round of lots is being auctioned
+    public boolean lotRunning = false;
+
+    // The number of the current round, so that an old deadline does not close a newer round
+    public int lotNumber = 0;
+
+    // The longest time (ms) a round may take before it is given up and tried again later (argument "round-timeout")
+    public long roundTimeout = 10000;
+
+    // The longest time (ms) to wait for the bids of a lot, so that a silent bidder cannot stall it (argument "bid-timeout")
+    public long bidTimeout = 5000;
+
+    // How the bids are acknowledged: for every bid, once per round or never (argument "acks": "bid", "summary" or "none")
+    public int ackMode = BidAcks.PER_BID;
+
+    // The time (ms) to wait before the next lot when all the items of the queue were left unsold in a row (argument "retry-delay")
+    public long retryDelay = 10000;
+
+    // The number of lots that were left unsold since the last sale
+    private int unsoldInARow = 0;
+
+    // The deadline of the current round
+    private TimerWheel.Timer deadline = null;
+
+    // The timers of the rounds, like their deadlines and the bid timeouts, on one clock (argument "timer-tick", ms)
+    public TimerWheel timers;
+
+    // The events of the auctions, for a program that watches them (an argument object)
+    public AuctionEvents events = AuctionEvents.NONE;
+
+    // The port of this machine where the catalogue loader accepts items (argument "load-port")
+    private ServerSocket loaderPort = null;
+
+    // The front of the cluster that gets the results of the sales, if the auctioneer is a shard (argument "front")
+    public AID front = null;
+
+    // The metrics of the auctions, that JMX shows
+    public AuctioneerMetrics metrics;
+
+    // The journal of the catalogue, the bids and the sales, to start again after a crash (argument "journal")
+    public BidJournal journal = null;
+
+    // The snapshots of the journal, taken in the background (argument "snapshot-interval")
+    private Snapshots snapshots = null;
+
+    /**
+    *    Set-up the auctioneer and the auction system.
+    */
+    @Override
+    protected void setup() {
+        priceList= new BidLedger();
+
+        // Read the arguments of the agent
+        keepAllBids = getArgument("keep-bids", null) != null;
+        roundTimeout = Long.parseLong(getArgument("round-timeout", String.valueOf(roundTimeout)));
+        bidTimeout = Long.parseLong(getArgument("bid-timeout", String.valueOf(bidTimeout)));
+        ackMode = BidAcks.parseMode(getArgument("acks", "bid"));
+        retryDelay = Long.parseLong(getArgument("retry-delay", String.valueOf(retryDelay)));
+        if (getArgument("log", null) != null) {
+            AuctionLog.setLevel(AuctionLog.parseLevel(getArgument("log", null)));
+        }
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof AuctionEvents) {
+                    events = (AuctionEvents) arg;
+                }
+            }
+        }
+        if (getArgument("front", null) != null) {
+            front = new AID(getArgument("front", null), AID.ISLOCALNAME);
+        }
+        batchSize = Math.max(1, Math.min(AuctionCodec.MAX_BATCH, Integer.parseInt(getArgument("batch", String.valueOf(batchSize)))));
+                            
+        // show a starting message
+	AuctionLog.info("The auctions starts!  Auctioneer {} is ready.", getAID().getName());
+
+	// Create the catalogue
+	catalogue = new Catalogue();
+
+        // Rebuild the catalogue and the bids from the last snapshot and the journal, and keep appending to it
+        if (getArgument("journal", null) != null) {
+            openJournal(getArgument("journal", null), Long.parseLong(getArgument("journal-sync", "10")),
+                    Long.parseLong(getArgument("snapshot-interval", "60000")));
+        }
+
+	// Create and show the GUI window, unless the auctioneer runs without one (argument "headless")
+	if (getArgument("headless", null) == null) {
+	    myGUI = new AuctioneerGUI(this);
+	    myGUI.showGui();
+	}
+
+        // Show the metrics of the auctions to JMX
+        metrics = AuctioneerMetrics.register(this);
+
+        // One clock for the timers of all the rounds
+        timers = new TimerWheel(this, Long.parseLong(getArgument("timer-tick", "10")));
+        addBehaviour(timers);
+
+        // Receive the items that are sent by other agents, like the front of a cluster, or by the program that started the agent
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ReceiveItems(this));
+
+        // Load the items of a file and of the connections to a local port, without the GUI
+        try {
+            if (getArgument("load", null) != null) {
+                CatalogueLoader.loadFile(this, getArgument("load", null));
+            }
+            if (getArgument("load-port", null) != null) {
+                loaderPort = CatalogueLoader.listen(this, Integer.parseInt(getArgument("load-port", null)));
+            }
+        }
+        catch (IOException e) {
+            AuctionLog.warn("The catalogue loader cannot start: {}", e.getMessage());
+        }
+       
+        // Subscribe to the yellow pages, to keep the list of bidders up to date
+        directory = new BidderDirectory(this, "blind-auction");
+        addBehaviour(directory);
+
+        // Add a Behaviour that starts the first lot as soon as there is an item
+        addBehaviour(new ActionBid(this));
+    }
+
+    // Restore the last snapshot, open the journal and apply its records after the snapshot to the catalogue and the bids
+    private void openJournal(String path, long syncMillis, long snapshotMillis) {
+        try {
+            BidJournal.Records records = new BidJournal.Records() {
+                public void item(String name, int price, int quantity) {
+                    catalogue.put(name, price, quantity);
+                    priceList.open(name);
+                }
+                public void bid(String name, int price, String bidder) {
+                    priceList.open(name).add(price);
+                }
+                public void sold(String name, int price, String winner) {
+                    catalogue.remove(name);
+                    priceList.remove(name);
+                }
+                public void units(String name, int price, int quantity, String winner) {
+                    sellUnits(name, quantity);
+                }
+                public void removed(String name) {
+                    catalogue.remove(name);
+                    priceList.remove(name);
+                }
+            };
+            Snapshots snapshot = Snapshots.load(path + ".snapshot");
+            if (snapshot.getPosition() > new File(path).length()) {
+                AuctionLog.warn("The snapshot {} is ahead of its journal, the whole journal is read instead.", path + ".snapshot");
+                snapshot = new Snapshots(path + ".snapshot");
+            }
+            snapshot.restore(records);
+            journal = BidJournal.open(path, syncMillis, snapshot.getPosition(), records);
+            AuctionLog.info("Recovered {} items from the snapshot and {} records from the journal {}, {} items are in the catalogue.",
+                    snapshot.size(), journal.getRecovered(), path, catalogue.size());
+            if (snapshotMillis > 0) {
+                snapshots = snapshot;
+                snapshots.start(journal, snapshotMillis);
+            }
+        }
+        catch (IOException e) {
+            AuctionLog.error("The journal {} cannot be opened: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    *   An argument with no value, like "keep-bids", gives "true".
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+    *    Agent clean-up operations.
+    */
+    protected void takeDown() {
+        // Stop the catalogue loader
+        if (loaderPort != null) {
+            try {
+                loaderPort.close();
+            }
+            catch (IOException e) {
+            }
+        }
+
+        // Stop the notifications of the yellow pages
+        directory.cancel(getDefaultDF(), true);
+
+        metrics.unregister();
+
+        // Take a last snapshot and force the last records of the journal to the disk
+        if (snapshots != null) {
+            snapshots.stop(journal);
+        }
+        if (journal != null) {
+            journal.close();
+        }
+
+	// Close the GUI
+	if (myGUI != null) {
+	    myGUI.dispose();
+	}
+
+	// Show a dismissal message
+	AuctionLog.info("Auctioneer {} terminating.", getAID().getName());
+    }
+
+    /**
+    *   This is invoked by the GUI when the user adds a new item for sale.
+    */
+    public void updateCatalogue(final String title, final int price) {
+        updateCatalogue(title, price, 1);
+    }
+
+    /**
+    *   It adds an item of many identical units, that are sold together in one round at one price for every unit.
+    */
+    public void updateCatalogue(final String title, final int price, final int quantity) {
+        if (quantity < 1) {
+            AuctionLog.warn("{} has {} units. An item has at least one unit.", title, quantity);
+            return;
+        }
+        addBehaviour(
+            new OneShotBehaviour() {
+                public void action() {
+                    catalogue.put(title, price, quantity);
+                    if (journal != null) {
+                        journal.item(title, price, quantity);
+                    }
+                    if (quantity > 1) {
+                        AuctionLog.info("{} is inserted into catalogue with {} units. Initial Price = {} for every unit.", title, quantity, price);
+                    }
+                    else {
+                        AuctionLog.info("{} is inserted into catalogue. Initial Price = {}.", title, price);
+                    }
+                    priceList.open(title);
+                    unsoldInARow = 0;
+                }                
+            }             
+        );
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   This is invoked by the catalogue loader with a chunk of items.
+    *   The items are inserted at once and the next lot is scheduled once for all of them.
+    */
+    public void addItems(CatalogueLoader.Chunk chunk) {
+        for (int i = 0; i < chunk.size; i++) {
+            catalogue.put(chunk.names[i], chunk.prices[i], chunk.quantities[i]);
+            if (journal != null) {
+                journal.item(chunk.names[i], chunk.prices[i], chunk.quantities[i]);
+            }
+        }
+        unsoldInARow = 0;
+        AuctionLog.info("{} items are inserted into catalogue.", chunk.size);
+        addBehaviour(new ActionBid(this));
+    }
+
+    /**
+    *   This is invoked to delete item.
+    */
+    public Integer removeItemFromCatalogue(final String title) {
+        Integer price = null;
+        // It is called by the behaviours of the agent, so the item is removed at once
+        Catalogue.Item item = catalogue.remove(title);
+        if (item != null) {
+            price = item.price;
+        }
+        priceList.remove(title);
+        return price;
+    }
+
+    /**
+    *   It takes the units that are sold out of the catalogue, and removes the item when all its units are sold.
+    *   It returns false if the item is not in the catalogue any more.
+    */
+    public boolean sellUnits(final String title, int sold) {
+        Catalogue.Item item = catalogue.get(title);
+        if (item == null) {
+            return false;
+        }
+        item.quantity -= sold;
+        if (item.quantity <= 0) {
+            removeItemFromCatalogue(title);
+        }
+        return true;
+    }
+
+    /**
+    *   It tells the front of the cluster, if there is one, that an item has been sold.
+    */
+    public void reportSale(String title, int price, AID winner) {
+        if (front != null) {
+            ACLMessage result = new ACLMessage(ACLMessage.INFORM);
+            result.addReceiver(front);
+            result.setConversationId("auction-result");
+            result.setByteSequenceContent(AuctionCodec.encodeResult(title, price, winner.getName()));
+            send(result);
+        }
+    }
+
+    /**
+    *    It returns true if the catalogue is empty.
+    */
+    public boolean isCatalogueEmpty() {
+        return catalogue.isEmpty();
+    }
+
+    /**
+    *    It returns the name of the first item.
+    */
+    public String getFirstItemName() {
+        Catalogue.Item item = catalogue.peek();
+        return item != null ? item.name : null;
+    }
+
+    /**
+    *    It takes the next item out of the queue and returns its name, or null if there is none.
+    */
+    public String getNextItemName() {
+        Catalogue.Item item = catalogue.poll();
+        return item != null ? item.name : null;
+    }
+    
+    /**
+    *   It returns the initial price of a specific item.
+    */
+    public int getItemInitialPrice(final String title) {
+        return catalogue.price(title);
+    }
+
+    /**
+    *   It returns the number of units of a specific item, or 0 if it is not in the catalogue.
+    */
+    public int getItemQuantity(final String title) {
+        Catalogue.Item item = catalogue.get(title);
+        return item != null ? item.quantity : 0;
+    }
+
+    /**
+    *   It starts a round with the lots of the given items: find bidders, send one CFP for all the lots,
+    *   receive the bids and announce the winner of every lot.
+    *   The round is given up if it is not closed before the round timeout.
+    */
+    public void startLots(final ArrayList<String> titles) {
+        // Initialize all conditions
+        biddersFound = false;
+        CFPSent = false;
+        bidsReceived = false;
+        lotRunning = true;
+        lotNumber++;
+
+        lots.clear();
+        for (String title : titles) {
+            lots.add(new Lot(title, getItemInitialPrice(title), getItemQuantity(title), priceList.open(title)));
+            metrics.lotOpened();
+        }
+
+        if (p != null) removeBehaviour(p);
+        if (q != null) removeBehaviour(q);
+        if (r != null) removeBehaviour(r);
+        if (s != null) removeBehaviour(s);
+
+        // Find Bidder
+        p = new FindBidder(this);
+        addBehaviour(p);
+
+        // Send CFP to all bidders
+        q = new SendCFP(this);
+        addBehaviour(q);
+
+        // Receive all proposals/refusals from bidders and find the highest bidder of every lot
+        r = new ReceiveBids(this);
+        addBehaviour(r);
+
+        // Send the request order to the bidder that provided the best offer for every lot
+        s = new AnnounceWinner2(this);
+        addBehaviour(s);
+
+        // Give the round up if it takes too long
+        deadline = timers.schedule(roundTimeout, new RoundDeadline(this, lotNumber));
+    }
+
+    /**
+    *   It closes a lot of the current round. An unsold item goes to the back of the queue.
+    */
+    public void closeLot(final Lot lot, boolean sold) {
+        events.lotClosed(lot.itemName, sold);
+        // A round that is given up may close its lots before their CFP is sent
+        metrics.lotClosed(sold, lot.startedAt != 0 ? System.nanoTime() - lot.startedAt : -1);
+        if (sold) {
+            unsoldInARow = 0;
+        }
+        else {
+            catalogue.requeue(lot.itemName);
+            unsoldInARow++;
+        }
+    }
+
+    /**
+    *   It puts the units of an item that are left after its lot back at the end of the queue.
+    *   Unlike an unsold item, they do not count towards the items that were left unsold in a row.
+    */
+    public void requeueUnits(String title) {
+        catalogue.requeue(title);
+    }
+
+    /**
+    *   It closes the current round, after all its lots are closed, and starts the next one at once.
+    *   If every item of the queue was left unsold in a row
+    *   the next round waits for the retry delay, so that the bidders are not called again and again for nothing.
+    */
+    public void closeRound() {
+        lotRunning = false;
+        lots.clear();
+        timers.cancel(deadline);
+        deadline = null;
+
+        if (unsoldInARow > 0 && unsoldInARow >= catalogue.size()) {
+            AuctionLog.info("No item could be sold. Next try in {} ms.", retryDelay);
+            timers.schedule(retryDelay, new Runnable() {
+                public void run() {
+                    unsoldInARow = 0;
+                    addBehaviour(new ActionBid(Auctioneer.this));
+                }
+            });
+        }
+        else {
+            addBehaviour(new ActionBid(this));
+        }
+    }
+
+}
+
+/**
+ *  Add a Behaviour that starts the next round, if there is no round running and there is any item to sell.
+ *  A round takes up to the batch size of items from the queue, and an item of many units has a round of its own.
+ *  It is added when an item is inserted and when a round closes, so a new round starts as soon as the previous one is over.
+*/
+class ActionBid extends OneShotBehaviour {
+
+    private Auctioneer myAgent;
+
+    private String currentItemName;
+
+    public ActionBid(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    @Override
+    public void action(){
+
+        if (myAgent.lotRunning) {
+            return;
+        }
+        
+        // Take the items of the round out of the queue
+        ArrayList<String> titles = new ArrayList<>();
+        while (titles.size() < myAgent.batchSize && (currentItemName = myAgent.getFirstItemName()) != null) {
+            boolean units = myAgent.getItemQuantity(currentItemName) > 1;
+            if (units && !titles.isEmpty()) {
+                // It waits for the next round
+                break;
+            }
+            myAgent.getNextItemName();
+            AuctionLog.info("Starting auction for item {}.", currentItemName);
+            titles.add(currentItemName);
+            if (units) {
+                break;
+            }
+        }
+
+        // If there is any item to sell
+        if (!titles.isEmpty()) {
+
+            AuctionLog.debug("Waiting for bidders...");
+
+            myAgent.startLots(titles);
+        }        
+        else {
+			AuctionLog.info("Add an item before we can commence auctions.");
+        }
+    }
+}
+
+/**
+ *  It receives the items that other agents send for sale, and adds them to the catalogue.
+ *  An item comes as a REQUEST of the "catalogue" conversation, or as a Catalogue.Item object (O2A)
+ *  from the program that started the auctioneer, and the items of the catalogue loader come in chunks (O2A).
+*/
+class ReceiveItems extends CyclicBehaviour {
+
+    private Auctioneer myAgent;
+
+    private MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                                                     MessageTemplate.MatchConversationId("catalogue"));
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveItems(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        boolean received = false;
+
+        Object o;
+        while ((o = myAgent.getO2AObject()) != null) {
+            if (o instanceof Catalogue.Item) {
+                Catalogue.Item item = (Catalogue.Item) o;
+                myAgent.updateCatalogue(item.name, item.price, item.quantity);
+            }
+            else if (o instanceof CatalogueLoader.Chunk) {
+                CatalogueLoader.Chunk chunk = (CatalogueLoader.Chunk) o;
+                myAgent.addItems(chunk);
+                chunk.inserted();
+            }
+            received = true;
+        }
+
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            try {
+                AuctionCodec.Content item = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+                if (item.type == AuctionCodec.ITEM) {
+                    myAgent.updateCatalogue(item.itemName, item.initialPrice);
+                }
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The item of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            }
+            received = true;
+        }
+
+        if (!received) {
+            block();
+        }
+    }
+}
+
+/**
+ *  It gives a round up if it is still running when its time is over. It is a timer of the auctioneer.
+ *  The items go back to the queue and the auction continues with the next round.
+*/
+class RoundDeadline implements Runnable {
+
+    private Auctioneer myAgent;
+
+    private int lotNumber;
+
+    public RoundDeadline(Auctioneer agent, int lotNumber) {
+        myAgent = agent;
+        this.lotNumber = lotNumber;
+    }
+
+    public void run() {
+        if (myAgent.lotRunning && myAgent.lotNumber == lotNumber) {
+            if (myAgent.p != null) myAgent.removeBehaviour(myAgent.p);
+            if (myAgent.q != null) myAgent.removeBehaviour(myAgent.q);
+            if (myAgent.r != null) {
+                myAgent.r.giveUp();
+                myAgent.removeBehaviour(myAgent.r);
+            }
+            if (myAgent.s != null) myAgent.removeBehaviour(myAgent.s);
+            for (Lot lot : myAgent.lots) {
+                AuctionLog.warn("The auction for {} took too long. It will be tried again later.", lot.itemName);
+                myAgent.closeLot(lot, false);
+            }
+            myAgent.closeRound();
+        }
+    }
+}
+/**
+ *  It finds the bidders if any. 
+ *  The bidders are read from the directory of the auctioneer, so no search of the DF is needed.
+*/
+class FindBidder extends Behaviour {
+
+    private Auctioneer myAgent;
+
+    // The time (ns) when the lookup started
+    private long startedAt = 0;
+
+    public FindBidder(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+    
+    public void action() {
+
+        if (!myAgent.biddersFound) {
+
+            if (startedAt == 0) {
+                startedAt = System.nanoTime();
+            }
+
+            // Take the list of bidders from the directory, that the DF keeps up to date
+            if (!myAgent.directory.isEmpty()) {
+                myAgent.bidders = myAgent.directory.getBidders();
+                if (AuctionLog.isDebugEnabled()) {
+                    AuctionLog.debug("Found {} bidders.", myAgent.bidders.length);
+                }
+                myAgent.biddersFound = true;                    
+                myAgent.metrics.dfLookup(System.nanoTime() - startedAt);
+            }
+            else {
+                // Wait until a bidder registers
+                myAgent.directory.waitForBidders(this);
+                block();
+            }
+
+        }
+    }
+
+    public boolean done() {
+        return myAgent.biddersFound;
+    }
+}
+
+/**
+*   Send CFP to all bidders.
+*   A round of one lot sends the CFP of an item, a round of many lots sends one CFP with all of them.
+*   A lot of many units sends the number of its units, and the bidders bid for some of them.
+*/
+class SendCFP extends Behaviour {
+
+    private Auctioneer myAgent;
+
+    public SendCFP(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+    }
+    
+    public void action() {
+
+        if (!myAgent.CFPSent && myAgent.biddersFound) {
+
+            // Send the cfp to all bidders
+            AuctionLog.debug("Sending CFP to all bidders..");
+            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+            for (int i = 0; i < myAgent.bidders.length; ++i) {
+                cfp.addReceiver(myAgent.bidders[i]);
+            } 
+            cfp.setByteSequenceContent(encodeLots());
+            cfp.setConversationId("blind-bid");
+            cfp.setReplyWith("cfp"+System.currentTimeMillis()); // Unique value
+            myAgent.send(cfp);
+            myAgent.metrics.cfpSent(myAgent.bidders.length);
+            long now = System.nanoTime();
+            for (Lot lot : myAgent.lots) {
+                lot.startedAt = now;
+                myAgent.events.lotStarted(lot.itemName);
+            }
+
+            // Prepare message template
+            myAgent.mt = MessageTemplate.and(MessageTemplate.MatchConversationId("blind-bid"),
+                                             MessageTemplate.MatchInReplyTo(cfp.getReplyWith()));
+        
+            myAgent.CFPSent = true;
+
+        }
+    }
+
+    // It encodes the lots of the round
+    private byte[] encodeLots() {
+        ArrayList<Lot> lots = myAgent.lots;
+        if (lots.size() == 1 && lots.get(0).units != null) {
+            return AuctionCodec.encodeUnitsCfp(lots.get(0).itemName, lots.get(0).initialPrice, lots.get(0).quantity);
+        }
+        if (lots.size() == 1) {
+            return AuctionCodec.encodeCfp(lots.get(0).itemName, lots.get(0).initialPrice, 0);
+        }
+        String[] names = new String[lots.size()];
+        int[] initialPrices = new int[lots.size()];
+        int[] previousPrices = new int[lots.size()];
+        for (int i = 0; i < lots.size(); ++i) {
+            names[i] = lots.get(i).itemName;
+            initialPrices[i] = lots.get(i).initialPrice;
+        }
+        return AuctionCodec.encodeBatchCfp(names, initialPrices, previousPrices, lots.size());
+    }
+
+    public boolean done() {
+        return myAgent.CFPSent;
+    }
+}
+
+/**
+*   Receive all proposals/refusals from bidders and find the highest bidder of every lot.
+*   A bidder answers a round of many lots with one message that has a bid for every lot.
+*   The round closes when all bidders have replied or when the bid timeout is over,
+*   with the bids received so far; the bidders that did not reply in time are reported.
+*/
+class ReceiveBids extends Behaviour {
+ 
+    private Auctioneer myAgent;
+    private int repliesCnt = 0; // The counter of replies from seller agents
+    private HashSet<AID> replied = new HashSet<>(); // The bidders that have replied
+    private TimerWheel.Timer deadline = null; // The timer that closes the round, even if some bidders have not replied
+    private boolean late = false; // It is true when the bid timeout is over
+    private AuctionCodec.Content content = new AuctionCodec.Content(); // The decoded content of the bids
+    private BidAcks acks; // The acknowledgements of the bids
+
+    public ReceiveBids(Auctioneer agent) {
+        super(agent);
+        myAgent = agent;
+        this.acks = new BidAcks(agent, agent.ackMode);
+    }
+    
+    public void action() {
+
+        if (myAgent.CFPSent) {
+
+            if (deadline == null) {
+                deadline = myAgent.timers.schedule(myAgent.bidTimeout, new Runnable() {
+                    public void run() {
+                        late = true;
+                        restart();
+                    }
+                });
+            }
+
+            // Receive all proposals/refusals from seller agents
+            ACLMessage msg = myAgent.receive(myAgent.mt);
+            if (msg != null) {
+                if (!replied.add(msg.getSender())) {
+                    // A bidder answers once per round
+                    return;
+                }
+
+                // Bid received
+                if (msg.getPerformative() == ACLMessage.PROPOSE) {
+
+                    // This is an offer, for the only lot of the round or for every lot of the round
+                    AuctionCodec.Content bids = decodeBids(msg);
+                    int kept = 0;
+                    int given = 1;
+                    if (bids != null && bids.type == AuctionCodec.BID && myAgent.lots.size() == 1) {
+                        // Keep the bid if it is one of the two highest
+                        if (bids.price >= 0) {
+                            myAgent.metrics.bidReceived();
+                            myAgent.events.bidReceived(myAgent.lots.get(0).itemName, bids.price);
+                        }
+                        if (offer(myAgent.lots.get(0), bids.price, msg.getSender())) {
+                            kept++;
+                        }
+                    }
+                    else if (bids != null && bids.type == AuctionCodec.UNITS_BID && myAgent.lots.size() == 1) {
+                        // A bid for some units of the only lot of the round, at a price for every unit
+                        if (bids.price >= 0) {
+                            myAgent.metrics.bidReceived();
+                            myAgent.events.bidReceived(myAgent.lots.get(0).itemName, bids.price);
+                        }
+                        if (offer(myAgent.lots.get(0), bids.price, bids.quantity, msg.getSender())) {
+                            kept++;
+                        }
+                    }
+                    else if (bids != null && bids.type == AuctionCodec.BATCH_BID) {
+                        int n = Math.min(bids.count, myAgent.lots.size());
+                        given = 0;
+                        for (int i = 0; i < n; ++i) {
+                            if (bids.prices[i] >= 0) {
+                                given++;
+                                myAgent.metrics.bidReceived();
+                                myAgent.events.bidReceived(myAgent.lots.get(i).itemName, bids.prices[i]);
+                            }
+                            if (offer(myAgent.lots.get(i), bids.prices[i], msg.getSender())) {
+                                kept++;
+                            }
+                        }
+                    }
+                    else if (bids != null && bids.type == AuctionCodec.HOST_BID) {
+                        // A host of many bidders sends only the two highest bids of its bidders for every lot,
+                        // that are all the bids that can win a lot or set its price
+                        int n = Math.min(bids.count, myAgent.lots.size());
+                        given = 0;
+                        for (int i = 0; i < 2 * n; ++i) {
+                            if (bids.prices[i] >= 0) {
+                                given++;
+                                myAgent.metrics.bidReceived();
+                                myAgent.events.bidReceived(myAgent.lots.get(i / 2).itemName, bids.prices[i]);
+                            }
+                            if (offer(myAgent.lots.get(i / 2), bids.prices[i], msg.getSender())) {
+                                kept++;
+                            }
+                        }
+                    }
+
+                    // Inform the bidder that the bids have been received
+                    acks.ack(msg, kept, given - kept);
+                }
+
+                if (msg.getPerformative() == ACLMessage.REFUSE){
+                    AuctionLog.debug("{} is not joining this auction.", msg.getSender().getLocalName());
+                }
+
+                if (msg.getPerformative() == ACLMessage.CANCEL){
+                    AuctionLog.debug("{} has not enough budget to join this auction.", msg.getSender().getLocalName());
+                }
+
+                // Every answer counts, so a lot closes when all bidders have answered in any way
+                repliesCnt++;
+            }
+            else {
+                if (!late) {
+                    // Wait for the next reply, or until the deadline
+                    block();
+                }
+                else {
+                    // Close the round with the bids received so far
+                    AuctionLog.warn("No reply from {} for {} in time. The lot closes without them.", getMissingBidders(), getItemNames());
+                    myAgent.bidsReceived = true;
+                }
+            }
+        
+            if (repliesCnt >= myAgent.bidders.length) {
+                // We have received all bids
+                myAgent.bidsReceived = true;
+            }
+
+            if (myAgent.bidsReceived) {
+                // Send the acknowledgements that wait for the end of the round
+                acks.flush();
+                myAgent.timers.cancel(deadline);
+            }
+        }
+    }
+
+    /**
+    *   It sends the acknowledgements that wait for the end of the round and cancels the bid timer,
+    *   when the round is given up before its bids are all received.
+    */
+    public void giveUp() {
+        acks.flush();
+        myAgent.timers.cancel(deadline);
+    }
+
+    // It offers a bid to a lot and writes it to the journal if it is kept
+    private boolean offer(Lot lot, int price, AID bidder) {
+        return offer(lot, price, 1, bidder);
+    }
+
+    // It offers a bid for a number of units of a lot and writes it to the journal if it is kept
+    private boolean offer(Lot lot, int price, int quantity, AID bidder) {
+        if (!lot.offer(price, quantity, bidder, myAgent.keepAllBids)) {
+            return false;
+        }
+        if (myAgent.journal != null) {
+            myAgent.journal.bid(lot.itemName, price, bidder.getName());
+        }
+        return true;
+    }
+
+    // It returns the bids of a reply, or null if the content cannot be read
+    private AuctionCodec.Content decodeBids(ACLMessage msg) {
+        try {
+            return AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The bid of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return null;
+        }
+    }
+
+    // It returns the names of the items of the round
+    private ArrayList<String> getItemNames() {
+        ArrayList<String> names = new ArrayList<>();
+        for (Lot lot : myAgent.lots) {
+            names.add(lot.itemName);
+        }
+        return names;
+    }
+
+    /**
+    *   It returns the names of the bidders that have not replied for this round.
+    */
+    public ArrayList<String> getMissingBidders() {
+        ArrayList<String> missing = new ArrayList<>();
+        for (int i = 0; i < myAgent.bidders.length; ++i) {
+            if (!replied.contains(myAgent.bidders[i])) {
+                missing.add(myAgent.bidders[i].getLocalName());
+            }
+        }
+        return missing;
+    }
+    
+    public boolean done() {
+        return myAgent.bidsReceived;
+    }
+}
+
+/**
+ * It announces the winner of every lot of the round and updates the catalogue.
+ * Send the request order to the bidder that provided the best offer for each lot.
+ * All the winners of a lot of many units pay the same price for every unit, the highest price of a unit that does not win.
+ * @condition: if there is any winner
+ */
+class AnnounceWinner2 extends Behaviour {
+    private ACLMessage msgCFP;
+     
+    private Auctioneer myAgent;
+
+    private boolean isDone = false;
+    
+    public AnnounceWinner2(Auctioneer agent) {
+        myAgent = agent;
+    }
+    
+    public void action() {
+        
+        if (myAgent.bidsReceived) {
+
+            for (Lot lot : myAgent.lots) {
+                announce(lot);
+            }
+
+            // Re-Initialize all conditions
+            myAgent.biddersFound = false;
+            myAgent.CFPSent = false;
+            myAgent.bidsReceived = false;                
+
+            // Continue with the next round at once
+            myAgent.closeRound();
+            isDone = true;
+        }
+    }
+
+    // It announces the winner of a lot
+    private void announce(Lot lot) {
+        if (lot.units != null) {
+            announceUnits(lot);
+            return;
+        }
+        // Only the bids that reach the initial price are kept, so there is a winner if any bid is kept
+        AID winner = lot.topBids.winner();
+        if (winner != null){
+            // Send the purchase order to the seller that provided the best offer
+            ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+            order.addReceiver(winner);
+
+            // The winner pays the second highest bid
+            int p = lot.topBids.secondPrice();
+                                
+            order.setByteSequenceContent(AuctionCodec.encodeOrder(lot.itemName, p));
+            order.setConversationId("blind-bid");
+            order.setReplyWith("order"+System.currentTimeMillis());
+
+            AuctionLog.debug("Announcing Winner for {} !", lot.itemName);
+
+            Integer price = myAgent.removeItemFromCatalogue(lot.itemName);
+            if (price != null) {
+                AuctionLog.info("{} sold to agent {} !", lot.itemName, winner.getName());                
+                myAgent.reportSale(lot.itemName, p, winner);
+                if (myAgent.journal != null) {
+                    myAgent.journal.sold(lot.itemName, p, winner.getName());
+                }
+            }
+            else {
+                // The requested item has been sold to another buyer somehow
+                order.setPerformative(ACLMessage.FAILURE);
+                order.setContent("not-available");
+            }
+            myAgent.send(order);
+
+            myAgent.closeLot(lot, true);
+        }
+        else {
+            AuctionLog.info("There is no winner for {}.. Bids were insufficient!", lot.itemName);
+            myAgent.closeLot(lot, false);
+        }
+    }
+
+    // It announces the winners of a lot of many units, with one order for every winner
+    private void announceUnits(Lot lot) {
+        UnitBids units = lot.units;
+        if (units.size() == 0) {
+            AuctionLog.info("There is no winner for {}.. Bids were insufficient!", lot.itemName);
+            myAgent.closeLot(lot, false);
+            return;
+        }
+
+        // The units of every winner, that may have won with more than one bid
+        LinkedHashMap<AID,Integer> winners = new LinkedHashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            Integer won = winners.get(units.bidder(i));
+            winners.put(units.bidder(i), (won != null ? won : 0) + units.filled(i));
+        }
+        int p = units.clearingPrice(lot.initialPrice);
+        int sold = units.sold();
+
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("Announcing {} Winners for {} !", winners.size(), lot.itemName);
+        }
+
+        boolean available = myAgent.sellUnits(lot.itemName, sold);
+        for (Map.Entry<AID,Integer> winner : winners.entrySet()) {
+            ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+            order.addReceiver(winner.getKey());
+            order.setByteSequenceContent(AuctionCodec.encodeUnitsOrder(lot.itemName, p, winner.getValue()));
+            order.setConversationId("blind-bid");
+            order.setReplyWith("order"+System.currentTimeMillis());
+            if (available) {
+                AuctionLog.info("{} units of {} sold to agent {} for {} each !", winner.getValue(), lot.itemName, winner.getKey().getName(), p);
+                myAgent.reportSale(lot.itemName, p, winner.getKey());
+                if (myAgent.journal != null) {
+                    myAgent.journal.units(lot.itemName, p, winner.getValue(), winner.getKey().getName());
+                }
+            }
+            else {
+                // The requested item has been sold to another buyer somehow
+                order.setPerformative(ACLMessage.FAILURE);
+                order.setContent("not-available");
+            }
+            myAgent.send(order);
+        }
+
+        // The units that are left go back to the queue, and a lot of which some units are sold is not unsold
+        boolean partly = available && sold > 0;
+        if (partly && sold < lot.quantity) {
+            AuctionLog.info("{} units of {} are left for a later round.", lot.quantity - sold, lot.itemName);
+            myAgent.requeueUnits(lot.itemName);
+        }
+        myAgent.closeLot(lot, partly);
+    }
+
+    public boolean done() {
+        return isDone;
+    }
 }
\ No newline at end of file
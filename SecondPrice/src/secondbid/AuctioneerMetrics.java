@@ -0,0 +1,191 @@
+package secondbid;
+
+import jade.core.Agent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The metrics of an auctioneer, registered as an MBean of the platform, so JConsole or any JMX client can watch the auctions.
+ * The auctioneer updates them from its own thread, so a counter is set without locks or atomic increments
+ * and the metrics can stay on without slowing the bids down. A JMX client reads them from its own thread.
+ */
+class AuctioneerMetrics implements AuctioneerMetricsMBean {
+
+    private final AtomicLong lotsOpened = new AtomicLong();
+    private final AtomicLong lotsSold = new AtomicLong();
+    private final AtomicLong lotsUnsold = new AtomicLong();
+    private final AtomicLong bidsReceived = new AtomicLong();
+    private final AtomicLong lastCfpFanOut = new AtomicLong();
+
+    // The number of receivers of every CFP
+    private final Histogram cfpFanOut = new Histogram();
+
+    // The time (us) to take the bidders of a round from the directory of the DF, including the wait for the first bidder
+    private final Histogram dfLookups = new Histogram();
+
+    // The time (us) from the CFP of a lot until it closes
+    private final Histogram lotClose = new Histogram();
+
+    // The last reading of the bids per second
+    private long sampledBids = 0;
+    private long sampledAt = System.nanoTime();
+    private double bidsPerSecond = 0;
+
+    // The name of the MBean, or null if it is not registered
+    private ObjectName name = null;
+
+    /**
+    *   It creates the metrics of an auctioneer and registers them to the MBean server of the platform.
+    *   If they cannot be registered they are still counted, and only JMX does not show them.
+    */
+    public static AuctioneerMetrics register(Agent agent) {
+        AuctioneerMetrics metrics = new AuctioneerMetrics();
+        try {
+            ObjectName name = new ObjectName("secondbid:type=Auctioneer,name=" + ObjectName.quote(agent.getLocalName()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metrics.name = name;
+        }
+        catch (JMException e) {
+            AuctionLog.warn("The metrics of {} cannot be registered: {}", agent.getLocalName(), e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+    *   It removes the MBean from the MBean server.
+    */
+    public void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            catch (JMException e) {
+            }
+            name = null;
+        }
+    }
+
+    // Add one to a counter that only the thread of the agent writes
+    private static void increment(AtomicLong counter) {
+        counter.lazySet(counter.get() + 1);
+    }
+
+    public void lotOpened() {
+        increment(lotsOpened);
+    }
+
+    /**
+    *   It counts a lot that closed, and its time from the CFP (ns), or -1 if its CFP was not sent.
+    */
+    public void lotClosed(boolean sold, long nanos) {
+        increment(sold ? lotsSold : lotsUnsold);
+        if (nanos >= 0) {
+            lotClose.record(nanos / 1000);
+        }
+    }
+
+    public void bidReceived() {
+        increment(bidsReceived);
+    }
+
+    public void cfpSent(int receivers) {
+        lastCfpFanOut.lazySet(receivers);
+        cfpFanOut.record(receivers);
+    }
+
+    public void dfLookup(long nanos) {
+        dfLookups.record(nanos / 1000);
+    }
+
+    public long getLotsOpen() {
+        return lotsOpened.get() - lotsSold.get() - lotsUnsold.get();
+    }
+
+    public long getLotsSold() {
+        return lotsSold.get();
+    }
+
+    public long getLotsUnsold() {
+        return lotsUnsold.get();
+    }
+
+    public long getBidsReceived() {
+        return bidsReceived.get();
+    }
+
+    /**
+    *   It returns the bids per second since the previous reading, that is kept for at least a second.
+    */
+    public synchronized double getBidsPerSecond() {
+        long now = System.nanoTime();
+        if (now - sampledAt >= 1000000000L) {
+            long bids = bidsReceived.get();
+            bidsPerSecond = (bids - sampledBids) * 1e9 / (now - sampledAt);
+            sampledBids = bids;
+            sampledAt = now;
+        }
+        return bidsPerSecond;
+    }
+
+    public long getCfpsSent() {
+        return cfpFanOut.getCount();
+    }
+
+    public long getLastCfpFanOut() {
+        return lastCfpFanOut.get();
+    }
+
+    public double getMeanCfpFanOut() {
+        return cfpFanOut.getMean();
+    }
+
+    public long getMaxCfpFanOut() {
+        return cfpFanOut.getMax();
+    }
+
+    public long getDfLookups() {
+        return dfLookups.getCount();
+    }
+
+    public double getMeanDfLookupMicros() {
+        return dfLookups.getMean();
+    }
+
+    public long getMaxDfLookupMicros() {
+        return dfLookups.getMax();
+    }
+
+    public double getMeanLotCloseMillis() {
+        return lotClose.getMean() / 1000;
+    }
+
+    public double getLotCloseP50Millis() {
+        return lotClose.getPercentile(50) / 1000.0;
+    }
+
+    public double getLotCloseP90Millis() {
+        return lotClose.getPercentile(90) / 1000.0;
+    }
+
+    public double getLotCloseP99Millis() {
+        return lotClose.getPercentile(99) / 1000.0;
+    }
+
+    public double getMaxLotCloseMillis() {
+        return lotClose.getMax() / 1000.0;
+    }
+
+    public long[] getLotCloseHistogramMicros() {
+        return lotClose.getBuckets();
+    }
+}
@@ -0,0 +1,53 @@
+package secondbid;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The metrics of an auctioneer that JMX shows, under the name secondbid:type=Auctioneer,name="local name".
+ * A lot is closed unsold also when its round is given up, and an item that is tried again is counted as a new lot.
+ * The times of the lots are in milliseconds and the times of the DF lookups in microseconds.
+ * A histogram is the counts of its buckets of powers of two: bucket i counts the values up to 2^i - 1.
+ */
+public interface AuctioneerMetricsMBean {
+
+    long getLotsOpen();
+
+    long getLotsSold();
+
+    long getLotsUnsold();
+
+    long getBidsReceived();
+
+    double getBidsPerSecond();
+
+    long getCfpsSent();
+
+    long getLastCfpFanOut();
+
+    double getMeanCfpFanOut();
+
+    long getMaxCfpFanOut();
+
+    long getDfLookups();
+
+    double getMeanDfLookupMicros();
+
+    long getMaxDfLookupMicros();
+
+    double getMeanLotCloseMillis();
+
+    double getLotCloseP50Millis();
+
+    double getLotCloseP90Millis();
+
+    double getLotCloseP99Millis();
+
+    double getMaxLotCloseMillis();
+
+    long[] getLotCloseHistogramMicros();
+}
@@ -1,239 +1,350 @@
-package secondbid;
-
-import static secondbid.ReceiveCFPAs.showRandomInteger;
-import jade.core.Agent;
-import jade.core.behaviours.*;
-import jade.lang.acl.ACLMessage;
-import jade.lang.acl.MessageTemplate;
-import jade.domain.DFService;
-import jade.domain.FIPAException;
-import jade.domain.FIPAAgentManagement.DFAgentDescription;
-import jade.domain.FIPAAgentManagement.ServiceDescription;
-
-import java.util.*;
-
-
-/**
- * 
- * @author Eirini Mitsopoulou
- * @author Kyriaki-Nektaria Pantelidou
- * @author Konstantina Papadopoulou
- */
-
-/**
- * This class creates a JADE agent who performs a bidder of a second-price sealed-bid auction.
- * It will terminate after the budget runs out.
- */
-public class AutoBidder2 extends Agent{
-
-    //  The name of the item that is to be sold
-    public String itemName;
-
-    // Check if CFP received
-    public boolean CFPReceived = false;
-
-    // The budget left for this bidder
-    public int budget;
-
-    // Random number generator
-    static Random rn = new Random();
-
-    // Agent initializations
-    protected void setup() {
-
-        // Setup budget randomly between [1000,2000]
-        budget = rn.nextInt(1000) + 1000;
-        //budget = 2000;    //it was used for the second example-strategy that appears in the report
-	System.out.println("Bidder "+getAID().getName()+" is ready with budget " + budget + ".");
-
-	// Register as bidder to the yellow pages
-	DFAgentDescription dfd = new DFAgentDescription();
-	dfd.setName(getAID());
-	ServiceDescription sd = new ServiceDescription();
-	sd.setType("blind-auction");
-	sd.setName("Blind-Auction");
-	dfd.addServices(sd);
-	try {
-            DFService.register(this, dfd);
-	}
-	catch (FIPAException fe) {
-            fe.printStackTrace();
-	}
-
-	// Add the behaviour for receiving CFP from Auctioneer
-	addBehaviour(new ReceiveCFPAs2(this));
-
-	// Add the behaviour for receiving item when win the auction
-	addBehaviour(new ReceiveItemAsWinner2(this));
-
-	// Add the behaviour for receiving INFORM
-	addBehaviour(new ReceiveINFORM2());
-    }
-
-    // Agent clean-up operations
-    protected void takeDown() {
-        // Deregister from the yellow pages
-        try {
-            DFService.deregister(this);
-        }
-        catch (FIPAException fe) {
-            fe.printStackTrace();
-        }
-
-        // Show a dismissal message
-        System.out.println("Bidder "+getAID().getName()+" terminating.");
-    }
-}
-
-/**
- * This processes CFP , deciding whether to bid on a specific item or not.
- */
-class ReceiveCFPAs2 extends CyclicBehaviour {
-
-    private AutoBidder2 myAgent;
-
-    public ReceiveCFPAs2(AutoBidder2 agent) {
-        super(agent);
-        myAgent = agent;
-    }
-
-    public void action() {
-        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.CFP);
-        ACLMessage msg = myAgent.receive(mt);
-
-        // Check budget -> If it is 0, terminate
-        if (myAgent.budget <= 0){
-            System.out.println("No budget left!");
-            myAgent.doDelete();
-        }
-
-        if (msg != null) {
-            // CFP Message received. Process it.
-            String ans = msg.getContent();
-            String[] components = ans.split(",");
-            String itemName = components[0];
-            int itemInitPrice = Integer.parseInt(components[1]);
-            ACLMessage reply = msg.createReply();
-            
-            // It follows the strategy of the bidder
-            
-            //Here is the strategy that appears in the first example of the report
-            int START = 1;
-            int END = myAgent.budget/2;
-            int randInt = 0;
-            Random random = new Random();
-            
-            // Check if the bidder has the money to buy the item
-            if(myAgent.budget >= itemInitPrice){
-            do
-            {
-               // Take one random number between [1,budget/2]
-               randInt = showRandomInteger(START, END, random);
-            }while((itemInitPrice + randInt)>myAgent.budget);   //until the bid price is less than the budget
-            }
-            
-            // This is the bid price -> the initial price of the item + the random number that we took above
-            int bidPrice = itemInitPrice + randInt;
-            
-            //Here is the strategy that appears in the third example of the report
-            /*int START = 1;
-            int END = myAgent.budget/2;
-            int randInt = 0;
-            Random random = new Random();
-            
-            // Check if the bidder has the money to buy the item
-            if(myAgent.budget >= itemInitPrice){
-            do
-            {
-               // Take one random number between [1,budget/2]
-               randInt = showRandomInteger(START, END, random);
-            }while((itemInitPrice + (randInt*2))>myAgent.budget);   //until the bid price is less than the budget
-            }
-            
-            // This is the bid price -> the initial price of the item + the random number that we took above*2
-            int bidPrice = itemInitPrice + (randInt*2);*/
-            
-       
-            System.out.println("Auction commenced. Current item is: " + itemName+ ".");
-            System.out.println("Current item initial price is: " + itemInitPrice + ".");
-
-            // Check if budget is adequate 
-            if (myAgent.budget >= itemInitPrice) {
-                // Send the bid
-                
-                myAgent.itemName = itemName;
-                reply.setPerformative(ACLMessage.PROPOSE);
-                reply.setContent(String.valueOf(bidPrice));
-                System.out.println(myAgent.getLocalName() + " sent bid with price " + bidPrice+ ".");
-            }
-            // Else, bidder can not join the auction
-            else {
-                reply.setPerformative(ACLMessage.REFUSE);
-                reply.setContent("Not joining this one...");
-                System.out.println(myAgent.getLocalName() + " is not joining this auction.");
-            }
-
-            myAgent.send(reply);
-        }
-        else {
-            block();
-        }
-    }
-    
-}
-
-
-/**
- * Get the item as the auction winner.
- */
-class ReceiveItemAsWinner2 extends CyclicBehaviour {
-
-    private AutoBidder2 myAgent;
-
-    public ReceiveItemAsWinner2(AutoBidder2 agent) {
-        super(agent);
-        myAgent = agent;
-    }
-
-    public void action() {
-        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL);
-        ACLMessage msg = myAgent.receive(mt);
-        if (msg != null) {
-            // ACCEPT_PROPOSAL Message has been received. Process it.
-            String ans = msg.getContent();
-            String[] parts = ans.split(",");
-            String itemName = parts[0];
-            int price = Integer.parseInt(parts[1]);
-            ACLMessage reply = msg.createReply();
-
-            reply.setPerformative(ACLMessage.INFORM);
-            System.out.println("Congratulations! You have won the auction!");
-            System.out.println(itemName+" is now yours! With the price " + price+ " .");
-
-            myAgent.send(reply);
-
-            // Subtract the money from budget
-            myAgent.budget -= price;            
-        }
-        else {
-            block();
-        }
-    }
-}
-
-/**
- * This receives the INFORM messages.
- */
-class ReceiveINFORM2 extends CyclicBehaviour {
-    public void action() {
-        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.INFORM);
-        ACLMessage msg = myAgent.receive(mt);
-        if (msg != null) {
-            // INFORM Message has been received, thus show it.
-            System.out.println(msg.getContent());
-        }
-        else {
-            block();
-        }
-    }
-}
+package secondbid;
+
+import static secondbid.RandomInteger.showRandomInteger;
+import jade.core.Agent;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+
+/**
+ * 
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent who performs a bidder of a second-price sealed-bid auction.
+ * It will terminate after the budget runs out.
+ */
+public class AutoBidder2 extends Agent{
+
+    //  The name of the item that is to be sold
+    public String itemName;
+
+    // Check if CFP received
+    public boolean CFPReceived = false;
+
+    // The budget left for this bidder
+    public int budget;
+
+    // The metrics of the bidder, that JMX shows
+    public BidderMetrics metrics;
+
+    // Random number generator
+    static Random rn = new Random();
+
+    // Agent initializations
+    protected void setup() {
+
+        // Setup budget randomly between [1000,2000]
+        budget = rn.nextInt(1000) + 1000;
+        //budget = 2000;    //it was used for the second example-strategy that appears in the report
+	AuctionLog.info("Bidder {} is ready with budget {}.", getAID().getName(), budget);
+        metrics = BidderMetrics.register(this, budget);
+
+	// Register as bidder to the yellow pages
+	DFAgentDescription dfd = new DFAgentDescription();
+	dfd.setName(getAID());
+	ServiceDescription sd = new ServiceDescription();
+	sd.setType("blind-auction");
+	sd.setName("Blind-Auction");
+	dfd.addServices(sd);
+	try {
+            DFService.register(this, dfd);
+	}
+	catch (FIPAException fe) {
+            fe.printStackTrace();
+	}
+
+	// Add the behaviour for receiving CFP from Auctioneer
+	addBehaviour(new ReceiveCFPAs2(this));
+
+	// Add the behaviour for receiving item when win the auction
+	addBehaviour(new ReceiveItemAsWinner2(this));
+
+	// Add the behaviour for receiving INFORM
+	addBehaviour(new ReceiveINFORM2());
+    }
+
+    // Agent clean-up operations
+    protected void takeDown() {
+        // Deregister from the yellow pages
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        metrics.unregister();
+
+        // Show a dismissal message
+        AuctionLog.info("Bidder {} terminating.", getAID().getName());
+    }
+}
+
+/**
+ * This processes CFP , deciding whether to bid on a specific item or not.
+ */
+class ReceiveCFPAs2 extends CyclicBehaviour {
+
+    private AutoBidder2 myAgent;
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveCFPAs2(AutoBidder2 agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.CFP);
+        ACLMessage msg = myAgent.receive(mt);
+
+        // Check budget -> If it is 0, terminate
+        if (myAgent.budget <= 0){
+            AuctionLog.info("No budget left!");
+            myAgent.doDelete();
+        }
+
+        if (msg != null) {
+            // CFP Message received. Process it.
+            AuctionCodec.Content cfp;
+            try {
+                cfp = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The CFP of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+                return;
+            }
+            ACLMessage reply = msg.createReply();
+
+            if (cfp.type == AuctionCodec.BATCH_CFP) {
+                // A CFP for many lots gets one reply with a bid for every lot, -1 for the lots it does not join
+                // The bids of the batch together stay within the budget
+                int[] bids = new int[cfp.count];
+                int left = myAgent.budget;
+                boolean joined = false;
+                for (int i = 0; i < cfp.count; i++) {
+                    bids[i] = bidPrice(cfp.itemNames[i], cfp.initialPrices[i], left);
+                    if (bids[i] >= 0) {
+                        left -= bids[i];
+                        myAgent.metrics.bidSent();
+                        joined = true;
+                    }
+                }
+                if (joined) {
+                    reply.setPerformative(ACLMessage.PROPOSE);
+                    reply.setByteSequenceContent(AuctionCodec.encodeBatchBid(bids, cfp.count));
+                }
+                else {
+                    reply.setPerformative(ACLMessage.REFUSE);
+                    reply.setContent("Not joining this one...");
+                }
+            }
+            else if (cfp.type == AuctionCodec.UNITS_CFP) {
+                // A CFP for many units of an item gets a bid for some of them, at a price for every unit
+                // The units of the bid together stay within the budget
+                int most = cfp.initialPrice > 0 ? Math.min(cfp.quantity, myAgent.budget / cfp.initialPrice) : cfp.quantity;
+                int quantity = most > 0 ? showRandomInteger(1, most, new Random()) : 0;
+                int unitPrice = quantity > 0 ? bidPrice(cfp.itemName, cfp.initialPrice, myAgent.budget / quantity) : -1;
+                if (unitPrice >= 0) {
+                    myAgent.itemName = cfp.itemName;
+                    reply.setPerformative(ACLMessage.PROPOSE);
+                    reply.setByteSequenceContent(AuctionCodec.encodeUnitsBid(quantity, unitPrice));
+                    myAgent.metrics.bidSent();
+                }
+                else {
+                    reply.setPerformative(ACLMessage.REFUSE);
+                    reply.setContent("Not joining this one...");
+                }
+            }
+            else {
+                int bidPrice = bidPrice(cfp.itemName, cfp.initialPrice, myAgent.budget);
+
+                // Check if budget is adequate 
+                if (bidPrice >= 0) {
+                    // Send the bid
+                    myAgent.itemName = cfp.itemName;
+                    reply.setPerformative(ACLMessage.PROPOSE);
+                    reply.setByteSequenceContent(AuctionCodec.encodeBid(bidPrice));
+                    myAgent.metrics.bidSent();
+                }
+                // Else, bidder can not join the auction
+                else {
+                    reply.setPerformative(ACLMessage.REFUSE);
+                    reply.setContent("Not joining this one...");
+                }
+            }
+
+            myAgent.send(reply);
+        }
+        else {
+            block();
+        }
+    }
+    
+    // It follows the strategy of the bidder for one item and returns the bid price, or -1 if the budget is not enough
+    private int bidPrice(String itemName, int itemInitPrice, int budget) {
+        
+        //Here is the strategy that appears in the first example of the report
+        int START = 1;
+        int END = budget/2;
+        int randInt = 0;
+        Random random = new Random();
+        
+        // Check if the bidder has the money to buy the item
+        if(budget > itemInitPrice){
+        do
+        {
+           // Take one random number between [1,budget/2]
+           randInt = showRandomInteger(START, END, random);
+        }while((itemInitPrice + randInt)>budget);   //until the bid price is less than the budget
+        }
+        
+        // This is the bid price -> the initial price of the item + the random number that we took above
+        int bidPrice = itemInitPrice + randInt;
+        
+        //Here is the strategy that appears in the third example of the report
+        /*int START = 1;
+        int END = budget/2;
+        int randInt = 0;
+        Random random = new Random();
+        
+        // Check if the bidder has the money to buy the item
+        if(budget > itemInitPrice){
+        do
+        {
+           // Take one random number between [1,budget/2]
+           randInt = showRandomInteger(START, END, random);
+        }while((itemInitPrice + (randInt*2))>budget);   //until the bid price is less than the budget
+        }
+        
+        // This is the bid price -> the initial price of the item + the random number that we took above*2
+        int bidPrice = itemInitPrice + (randInt*2);*/
+        
+   
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("Auction commenced. Current item is: {}.", itemName);
+            AuctionLog.debug("Current item initial price is: {}.", itemInitPrice);
+        }
+
+        // Check if budget is adequate 
+        if (budget >= itemInitPrice) {
+            if (AuctionLog.isDebugEnabled()) {
+                AuctionLog.debug("{} sent bid with price {}.", myAgent.getLocalName(), bidPrice);
+            }
+            return bidPrice;
+        }
+        // Else, bidder can not join the auction
+        else {
+            AuctionLog.debug("{} is not joining this auction.", myAgent.getLocalName());
+            return -1;
+        }
+    }
+}
+
+
+/**
+ * Get the item as the auction winner.
+ */
+class ReceiveItemAsWinner2 extends CyclicBehaviour {
+
+    private AutoBidder2 myAgent;
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public ReceiveItemAsWinner2(AutoBidder2 agent) {
+        super(agent);
+        myAgent = agent;
+    }
+
+    public void action() {
+        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL);
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            // ACCEPT_PROPOSAL Message has been received. Process it.
+            AuctionCodec.Content order;
+            try {
+                order = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+            }
+            catch (IllegalArgumentException e) {
+                AuctionLog.warn("The order of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+                return;
+            }
+            String itemName = order.itemName;
+            int price = order.price;
+            if (order.type == AuctionCodec.UNITS_ORDER) {
+                // The units that are won are paid at the price of a unit
+                price *= order.quantity;
+            }
+            ACLMessage reply = msg.createReply();
+
+            reply.setPerformative(ACLMessage.INFORM);
+            AuctionLog.info("Congratulations! You have won the auction!");
+            AuctionLog.info("{} is now yours! With the price {} .", itemName, price);
+
+            myAgent.send(reply);
+
+            // Subtract the money from budget
+            myAgent.budget -= price;            
+            myAgent.metrics.won(myAgent.budget);
+        }
+        else {
+            block();
+        }
+    }
+}
+
+/**
+ * This receives the INFORM messages.
+ */
+class ReceiveINFORM2 extends CyclicBehaviour {
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    public void action() {
+        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.INFORM);
+        ACLMessage msg = myAgent.receive(mt);
+        if (msg != null) {
+            // INFORM Message has been received, thus show it.
+            AuctionCodec.Content ack = decodeAck(msg);
+            if (ack == null) {
+                AuctionLog.debug("{}", msg.getContent());
+            }
+            else if (ack.status == AuctionCodec.ACK_ACCEPTED) {
+                AuctionLog.debug("Your bid has been received!");
+            }
+            else {
+                if (AuctionLog.isDebugEnabled()) {
+                    AuctionLog.debug("{} of your bids were not accepted.", ack.rejected);
+                }
+            }
+        }
+        else {
+            block();
+        }
+    }
+
+    // It returns the acknowledgement of bids, or null if the message is not one
+    private AuctionCodec.Content decodeAck(ACLMessage msg) {
+        try {
+            AuctionCodec.Content ack = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+            return ack.type == AuctionCodec.ACK ? ack : null;
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
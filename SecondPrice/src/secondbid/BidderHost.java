@@ -0,0 +1,275 @@
+package secondbid;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.ACLMessage;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * This class creates a JADE agent that hosts many bidders of a second-price sealed-bid auction (argument "bidders", 1000 by default).
+ * The bidders are not agents: a bidder is an index into arrays of budgets and strategies, so a host of 100000 bidders
+ * needs one thread, one registration in the yellow pages and a few hundred kilobytes.
+ * Half of the bidders follow the strategy of AutoBidder1 and half the strategy of AutoBidder2.
+ * For every lot the host answers with the two highest bids of its bidders, which are all the bids that can win the lot
+ * or set its price, and when it wins a lot it charges the bidder that made the highest bid.
+ * The hosted bidders do not bid for a lot of many units: the host refuses its CFP, since its two bids cannot say
+ * how many units each bidder wants.
+ */
+public class BidderHost extends Agent {
+
+    // The budget left for every bidder
+    public int[] budgets;
+
+    // The strategy of every bidder: 1 like AutoBidder1, 2 like AutoBidder2
+    public byte[] strategies;
+
+    // The number of bidders that have budget left
+    public int active;
+
+    // For every auctioneer, the bidder that made the highest bid for each lot of its last CFP
+    public HashMap<AID,HashMap<String,Integer>> leaders = new HashMap<>();
+
+    // The budget left for all the bidders together
+    public long budgetLeft = 0;
+
+    // The metrics of all the bidders together, that JMX shows
+    public BidderMetrics metrics;
+
+    // Agent initializations
+    protected void setup() {
+        int n = Integer.parseInt(getArgument("bidders", "1000"));
+
+        // Setup the budgets randomly between [1000,2000], like the bidders that are agents
+        Random rn = new Random();
+        budgets = new int[n];
+        strategies = new byte[n];
+        for (int i = 0; i < n; i++) {
+            budgets[i] = rn.nextInt(1000) + 1000;
+            strategies[i] = (byte)(i % 2 == 0 ? 1 : 2);
+            budgetLeft += budgets[i];
+        }
+        active = n;
+        metrics = BidderMetrics.register(this, budgetLeft);
+        AuctionLog.info("Bidder host {} is ready with {} bidders.", getAID().getName(), n);
+
+        // Register as bidder to the yellow pages, once for all the bidders
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("blind-auction");
+        sd.setName("Blind-Auction");
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        addBehaviour(new HostBidders(this));
+    }
+
+    /**
+    *   It returns the value of an argument "name=value" of the agent, or the default value if it is not given.
+    */
+    public String getArgument(String name, String defaultValue) {
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                String a = arg.toString();
+                if (a.equals(name)) {
+                    return "true";
+                }
+                if (a.startsWith(name + "=")) {
+                    return a.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    // Agent clean-up operations
+    protected void takeDown() {
+        // Deregister from the yellow pages
+        try {
+            DFService.deregister(this);
+        }
+        catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+
+        metrics.unregister();
+
+        AuctionLog.info("Bidder host {} terminating with {} bidders that have budget left.", getAID().getName(), active);
+    }
+}
+
+/**
+ * The event loop of the host: it answers the CFPs for all the bidders and charges the bidders that win.
+ * Every other message, like the acknowledgements of the bids, is dropped.
+ */
+class HostBidders extends CyclicBehaviour {
+
+    private BidderHost myAgent;
+
+    // The decoded content of the messages
+    private AuctionCodec.Content content = new AuctionCodec.Content();
+
+    // The budget of every bidder that is promised to the lots of the current batch
+    private int[] reserved;
+
+    private Random random = new Random();
+
+    public HostBidders(BidderHost agent) {
+        super(agent);
+        myAgent = agent;
+        reserved = new int[agent.budgets.length];
+    }
+
+    public void action() {
+        ACLMessage msg = myAgent.receive();
+        if (msg == null) {
+            block();
+            return;
+        }
+        if (msg.getPerformative() == ACLMessage.CFP) {
+            answer(msg);
+        }
+        else if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+            charge(msg);
+        }
+    }
+
+    // It answers a CFP with the two highest bids of the bidders for every lot, and refuses a lot of many units
+    private void answer(ACLMessage msg) {
+        AuctionCodec.Content cfp;
+        try {
+            cfp = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The CFP of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+        if (cfp.type == AuctionCodec.UNITS_CFP) {
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.REFUSE);
+            reply.setContent("Not joining this one...");
+            myAgent.send(reply);
+            return;
+        }
+        boolean batch = cfp.type == AuctionCodec.BATCH_CFP;
+        int count = batch ? cfp.count : 1;
+
+        int[] prices = new int[2 * count];
+        int[] leaderOf = new int[count];
+        HashMap<String,Integer> leaders = new HashMap<>();
+        boolean joined = false;
+        for (int i = 0; i < count; i++) {
+            int itemInitPrice = batch ? cfp.initialPrices[i] : cfp.initialPrice;
+            int best = -1;
+            int second = -1;
+            int leader = -1;
+            for (int b = 0; b < myAgent.budgets.length; b++) {
+                int price = bidPrice(b, itemInitPrice, myAgent.budgets[b] - reserved[b]);
+                if (price > best) {
+                    second = best;
+                    best = price;
+                    leader = b;
+                }
+                else if (price > second) {
+                    second = price;
+                }
+            }
+            prices[2 * i] = best;
+            prices[2 * i + 1] = second;
+            if (best >= 0) {
+                myAgent.metrics.bidSent();
+            }
+            if (second >= 0) {
+                myAgent.metrics.bidSent();
+            }
+            leaderOf[i] = leader;
+            if (leader >= 0) {
+                // The leader may win this lot, so the bids of the batch together stay within its budget
+                reserved[leader] += best;
+                leaders.put(batch ? cfp.itemNames[i] : cfp.itemName, leader);
+                joined = true;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (leaderOf[i] >= 0) {
+                reserved[leaderOf[i]] = 0;
+            }
+        }
+        myAgent.leaders.put(msg.getSender(), leaders);
+
+        ACLMessage reply = msg.createReply();
+        if (joined) {
+            reply.setPerformative(ACLMessage.PROPOSE);
+            reply.setByteSequenceContent(AuctionCodec.encodeHostBid(prices, count));
+        }
+        else {
+            reply.setPerformative(ACLMessage.REFUSE);
+            reply.setContent("Not joining this one...");
+        }
+        myAgent.send(reply);
+    }
+
+    // It follows the strategy of a bidder for one item and returns the bid price, or -1 if the budget is not enough
+    // The raise is drawn at once from the range that keeps the bid within the budget,
+    // which gives the same bids as drawing again until the bid is within the budget
+    private int bidPrice(int b, int itemInitPrice, int budget) {
+        if (budget <= 0 || budget < itemInitPrice) {
+            return -1;
+        }
+        int END = myAgent.strategies[b] == 1 ? budget : budget / 2;
+        int most = Math.min(END, budget - itemInitPrice);
+        if (most < 1) {
+            return itemInitPrice;
+        }
+        return itemInitPrice + RandomInteger.showRandomInteger(1, most, random);
+    }
+
+    // It charges the bidder that won a lot
+    private void charge(ACLMessage msg) {
+        AuctionCodec.Content order;
+        try {
+            order = AuctionCodec.decode(msg.getByteSequenceContent(), content);
+        }
+        catch (IllegalArgumentException e) {
+            AuctionLog.warn("The order of {} cannot be read: {}", msg.getSender().getLocalName(), e.getMessage());
+            return;
+        }
+        HashMap<String,Integer> leaders = myAgent.leaders.get(msg.getSender());
+        Integer b = leaders != null ? leaders.remove(order.itemName) : null;
+        if (b != null) {
+            pay(b, order.itemName, order.price);
+        }
+    }
+
+    // It takes the price of an item out of the budget of a bidder
+    private void pay(int b, String itemName, int price) {
+        myAgent.budgets[b] -= price;
+        myAgent.budgetLeft -= price;
+        myAgent.metrics.won(myAgent.budgetLeft);
+        if (myAgent.budgets[b] <= 0) {
+            myAgent.active--;
+        }
+        if (AuctionLog.isDebugEnabled()) {
+            AuctionLog.debug("Bidder {} of {} won {} with the price {}.", b, myAgent.getLocalName(), itemName, price);
+        }
+    }
+}
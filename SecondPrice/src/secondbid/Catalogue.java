@@ -0,0 +1,164 @@
+package secondbid;
+
+import java.util.*;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The catalogue of items for sale.
+ * The items are auctioned in the order they were added (FIFO) and the price of an item is found by its name,
+ * so the cost of every operation does not depend on the size of the catalogue.
+ */
+class Catalogue {
+
+    /**
+    *   An item of the catalogue.
+    */
+    static class Item {
+
+        // The name of the item
+        public final String name;
+
+        // The initial price of the item
+        public int price;
+
+        // The number of identical units of the item, that are auctioned together
+        public int quantity = 1;
+
+        // It is true while the item waits in the queue to be auctioned
+        public boolean queued = true;
+
+        // It is true if the item has been removed from the catalogue
+        public boolean removed = false;
+
+        public Item(String name, int price) {
+            this.name = name;
+            this.price = price;
+        }
+
+        public Item(String name, int price, int quantity) {
+            this(name, price);
+            this.quantity = quantity;
+        }
+    }
+
+    // It maps the name of an item to the item
+    private final HashMap<String,Item> items = new HashMap<>();
+
+    // The items that wait to be auctioned, in the order they were added
+    // Removed items are dropped when they reach the head of the queue
+    private final ArrayDeque<Item> queue = new ArrayDeque<>();
+
+    /**
+    *   It adds an item at the end of the queue, or updates the price of an item that is already in the catalogue.
+    */
+    public void put(String name, int price) {
+        put(name, price, 1);
+    }
+
+    /**
+    *   It adds an item of many units at the end of the queue, or updates the price and the units of an item
+    *   that is already in the catalogue.
+    */
+    public void put(String name, int price, int quantity) {
+        Item item = items.get(name);
+        if (item != null) {
+            item.price = price;
+            item.quantity = quantity;
+        }
+        else {
+            item = new Item(name, price, quantity);
+            items.put(name, item);
+            queue.addLast(item);
+        }
+    }
+
+    /**
+    *   It removes an item and returns it, or null if it is not in the catalogue.
+    */
+    public Item remove(String name) {
+        Item item = items.remove(name);
+        if (item != null) {
+            item.removed = true;
+        }
+        return item;
+    }
+
+    /**
+    *   It returns the item with this name, or null if it is not in the catalogue.
+    */
+    public Item get(String name) {
+        return items.get(name);
+    }
+
+    /**
+    *   It returns the initial price of an item, or 0 if it is not in the catalogue.
+    */
+    public int price(String name) {
+        Item item = items.get(name);
+        if (item != null) {
+            return item.price;
+        }
+        else {
+            return 0;
+        }
+    }
+
+    /**
+    *   It returns the first item of the queue without taking it out, or null if the queue is empty.
+    */
+    public Item peek() {
+        dropRemoved();
+        return queue.peekFirst();
+    }
+
+    /**
+    *   It takes the first item out of the queue, or returns null if the queue is empty.
+    *   The item stays in the catalogue until it is removed.
+    */
+    public Item poll() {
+        dropRemoved();
+        Item item = queue.pollFirst();
+        if (item != null) {
+            item.queued = false;
+        }
+        return item;
+    }
+
+    /**
+    *   It puts an item that was taken out of the queue back at the end of the queue.
+    */
+    public void requeue(String name) {
+        Item item = items.get(name);
+        if (item != null && !item.queued) {
+            item.queued = true;
+            queue.addLast(item);
+        }
+    }
+
+    /**
+    *   It returns true if there is no item in the catalogue.
+    */
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+    *   It returns the number of items in the catalogue.
+    */
+    public int size() {
+        return items.size();
+    }
+
+    // Drop the removed items from the head of the queue
+    private void dropRemoved() {
+        while (!queue.isEmpty() && queue.peekFirst().removed) {
+            queue.pollFirst().queued = false;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package secondbid;
+
+import jade.core.Agent;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It loads many items into the catalogue of the auctioneer, from a file (argument "load") or from the connections
+ * to a local port (argument "load-port"), without the GUI.
+ * The items are read by a thread of their own and given to the auctioneer in chunks, as O2A objects,
+ * so the auctioneer inserts a whole chunk at once and schedules the next lot once per chunk.
+ * At most a few chunks wait for the auctioneer at any time, so the memory of the loader does not grow with the file.
+ * The items come as text, one "name,price" per line (the price follows the last comma, lines that start with # are skipped),
+ * where an item of many units is written as "name,pricexunits", like "Chair,100x5",
+ * or as binary: the bytes "LOTS", the version (1 byte) and then for every item its name (2 bytes of length and the UTF-8 bytes),
+ * its price (4 bytes) and its units (4 bytes). The items of version 1 have no units and are of one unit.
+ */
+class CatalogueLoader implements Runnable {
+
+    // The number of items of a chunk
+    public static final int CHUNK_SIZE = 8192;
+
+    // The most chunks that wait for the auctioneer
+    public static final int MAX_PENDING = 4;
+
+    // The first bytes of the binary format
+    public static final byte[] MAGIC = { 'L', 'O', 'T', 'S' };
+    public static final byte VERSION = 2;
+
+    /**
+    *   A chunk of items that is inserted into the catalogue at once.
+    */
+    static class Chunk {
+        public final String[] names = new String[CHUNK_SIZE];
+        public final int[] prices = new int[CHUNK_SIZE];
+        public final int[] quantities = new int[CHUNK_SIZE];
+        public int size = 0;
+
+        // The loader that waits for the chunk to be inserted
+        public CatalogueLoader loader;
+
+        /**
+        *   It is invoked by the auctioneer when the chunk has been inserted.
+        */
+        public void inserted() {
+            if (loader != null) {
+                loader.pending.release();
+            }
+        }
+    }
+
+    private final Agent agent;
+
+    private final InputStream in;
+
+    private final String source;
+
+    // The chunks that the auctioneer may still receive
+    private final Semaphore pending = new Semaphore(MAX_PENDING);
+
+    // The number of items that have been given to the auctioneer and of lines that were skipped
+    private long items = 0;
+    private long skipped = 0;
+
+    public CatalogueLoader(Agent agent, InputStream in, String source) {
+        this.agent = agent;
+        this.in = in;
+        this.source = source;
+    }
+
+    /**
+    *   It starts to load the items of a file.
+    */
+    public static void loadFile(Agent agent, String path) throws IOException {
+        start(new CatalogueLoader(agent, new FileInputStream(path), path));
+    }
+
+    /**
+    *   It accepts connections to a port of this machine and loads the items that every connection sends.
+    */
+    public static ServerSocket listen(final Agent agent, int port) throws IOException {
+        final ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(new Runnable() {
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        // One connection at a time, so the chunks of two connections do not mix their order
+                        new CatalogueLoader(agent, socket.getInputStream(), socket.getRemoteSocketAddress().toString()).run();
+                        socket.close();
+                    }
+                    catch (IOException e) {
+                        if (!server.isClosed()) {
+                            AuctionLog.warn("The connection to the catalogue loader failed: {}", e.getMessage());
+                        }
+                    }
+                }
+            }
+        }, agent.getLocalName() + "-catalogue-port");
+        t.setDaemon(true);
+        t.start();
+        return server;
+    }
+
+    private static void start(CatalogueLoader loader) {
+        Thread t = new Thread(loader, loader.agent.getLocalName() + "-catalogue-loader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public void run() {
+        try {
+            BufferedInputStream input = new BufferedInputStream(in, 1 << 16);
+            input.mark(MAGIC.length);
+            byte[] head = new byte[MAGIC.length];
+            int n = 0;
+            while (n < head.length) {
+                int r = input.read(head, n, head.length - n);
+                if (r < 0) {
+                    break;
+                }
+                n += r;
+            }
+            if (n == MAGIC.length && Arrays.equals(head, MAGIC)) {
+                readBinary(new DataInputStream(input));
+            }
+            else {
+                input.reset();
+                readText(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16));
+            }
+            AuctionLog.info("Loaded {} items from {} ({} lines skipped).", items, source, skipped);
+        }
+        catch (IOException e) {
+            AuctionLog.warn("Loading the items from {} failed after {} items: {}", source, items, e.getMessage());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            try {
+                in.close();
+            }
+            catch (IOException e) {
+            }
+        }
+    }
+
+    // Read the lines "name,price" and "name,pricexunits"
+    private void readText(BufferedReader reader) throws IOException, InterruptedException {
+        Chunk chunk = new Chunk();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.lastIndexOf(',');
+                if (line.isEmpty() || line.startsWith("#") || comma <= 0) {
+                    skipped++;
+                    continue;
+                }
+                // The price may be followed by "x" and the number of units, like "Chair,100x5"
+                String value = line.substring(comma + 1).trim();
+                int x = value.indexOf('x');
+                int price;
+                int quantity = 1;
+                try {
+                    price = Integer.parseInt(x < 0 ? value : value.substring(0, x).trim());
+                    if (x >= 0) {
+                        quantity = Integer.parseInt(value.substring(x + 1).trim());
+                    }
+                }
+                catch (NumberFormatException e) {
+                    // Like a header "name,price"
+                    skipped++;
+                    continue;
+                }
+                if (quantity < 1) {
+                    skipped++;
+                    continue;
+                }
+                chunk = add(chunk, line.substring(0, comma).trim(), price, quantity);
+            }
+        }
+        finally {
+            // The items that were read before a failure are still given to the auctioneer
+            flush(chunk);
+        }
+    }
+
+    // Read the binary items
+    private void readBinary(DataInputStream data) throws IOException, InterruptedException {
+        int version = data.read();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unknown version " + version + " of the items");
+        }
+        Chunk chunk = new Chunk();
+        try {
+            byte[] name = new byte[256];
+            while (true) {
+                int high = data.read();
+                if (high < 0) {
+                    break;
+                }
+                int length = (high << 8) | data.readUnsignedByte();
+                if (length > name.length) {
+                    name = new byte[Math.max(length, name.length * 2)];
+                }
+                data.readFully(name, 0, length);
+                int price = data.readInt();
+                int quantity = version == 1 ? 1 : data.readInt();
+                if (quantity < 1) {
+                    skipped++;
+                    continue;
+                }
+                chunk = add(chunk, new String(name, 0, length, StandardCharsets.UTF_8), price, quantity);
+            }
+        }
+        finally {
+            flush(chunk);
+        }
+    }
+
+    // Add an item to the chunk, and give the chunk to the auctioneer when it is full
+    private Chunk add(Chunk chunk, String name, int price, int quantity) throws InterruptedException {
+        chunk.names[chunk.size] = name;
+        chunk.prices[chunk.size] = price;
+        chunk.quantities[chunk.size] = quantity;
+        chunk.size++;
+        if (chunk.size == CHUNK_SIZE) {
+            deliver(chunk);
+            items += chunk.size;
+            return new Chunk();
+        }
+        return chunk;
+    }
+
+    private void flush(Chunk chunk) throws InterruptedException {
+        if (chunk.size > 0) {
+            deliver(chunk);
+            items += chunk.size;
+        }
+    }
+
+    /**
+    *   It gives a chunk to the auctioneer, and waits first if too many chunks are not inserted yet.
+    */
+    protected void deliver(Chunk chunk) throws InterruptedException {
+        pending.acquire();
+        chunk.loader = this;
+        try {
+            agent.putO2AObject(chunk, false);
+        }
+        catch (InterruptedException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    /**
+    *   It writes an item of one unit in the binary format. The stream must start with MAGIC and VERSION.
+    */
+    public static void writeBinary(DataOutputStream out, String name, int price) throws IOException {
+        writeBinary(out, name, price, 1);
+    }
+
+    /**
+    *   It writes an item of many units in the binary format. The stream must start with MAGIC and VERSION.
+    */
+    public static void writeBinary(DataOutputStream out, String name, int price, int quantity) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("The name of the item is too long!");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+        out.writeInt(price);
+        out.writeInt(quantity);
+    }
+}
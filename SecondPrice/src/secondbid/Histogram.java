@@ -0,0 +1,110 @@
+package secondbid;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * A histogram of positive values with buckets of powers of two: bucket 0 counts the value 0,
+ * and bucket i counts the values from 2^(i-1) up to 2^i - 1.
+ * It is written by one thread (the thread of the agent) and read by any thread, like the JMX thread,
+ * so recording a value is a few increments without locks or allocations.
+ * The percentiles are the upper bounds of their buckets, so they are at most twice the real value.
+ */
+class Histogram {
+
+    // The number of buckets, enough for every long value
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+    *   It records a value. It must be invoked by one thread only.
+    */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int b = 64 - Long.numberOfLeadingZeros(value);
+        // One writer, so the values are set without the cost of an atomic increment
+        buckets.lazySet(b, buckets.get(b) + 1);
+        sum.lazySet(sum.get() + value);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+        count.lazySet(count.get() + 1);
+    }
+
+    /**
+    *   It returns the number of the recorded values.
+    */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+    *   It returns the mean of the recorded values, or 0 if there is none.
+    */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+    *   It returns the largest recorded value.
+    */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+    *   It returns the upper bound of the bucket of a percentile (0-100), or 0 if no value is recorded.
+    */
+    public long getPercentile(double percentile) {
+        long[] counts = getBuckets();
+        long n = 0;
+        for (long c : counts) {
+            n += c;
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) {
+                return Math.min(upperBound(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+    *   It returns the counts of the buckets.
+    */
+    public long[] getBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = buckets.get(b);
+        }
+        return counts;
+    }
+
+    /**
+    *   It returns the largest value of a bucket.
+    */
+    public static long upperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package secondbid;
+
+import jade.core.AID;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The state of one lot of a round: the item, its initial price and the bids it has received.
+ * The lots of a round are offered to the bidders together, with one CFP, and every lot has its own winner.
+ * A lot of many identical units has a round of its own, and all its units are sold at one price.
+ */
+class Lot {
+
+    // The name of the item that is auctioned
+    public final String itemName;
+
+    // The initial price of the item
+    public final int initialPrice;
+
+    // The number of identical units of the item
+    public final int quantity;
+
+    // The winning bids for the units, or null if the lot has a single unit
+    public final UnitBids units;
+
+    // The two highest bids for the item, with their bidders
+    public final TopBids topBids = new TopBids(2);
+
+    // All the bids for the item, kept only if the auctioneer keeps every bid
+    public final BidLedger.Bids bids;
+
+    // The time (ns) when the CFP of the lot was sent
+    public long startedAt = 0;
+
+    public Lot(String itemName, int initialPrice, BidLedger.Bids bids) {
+        this(itemName, initialPrice, 1, bids);
+    }
+
+    public Lot(String itemName, int initialPrice, int quantity, BidLedger.Bids bids) {
+        this.itemName = itemName;
+        this.initialPrice = initialPrice;
+        this.quantity = quantity;
+        this.units = quantity > 1 ? new UnitBids(quantity) : null;
+        this.bids = bids;
+    }
+
+    /**
+    *   It offers a bid for the item and returns true if it is kept. A bid below the initial price is not kept.
+    */
+    public boolean offer(int price, AID bidder, boolean keepAllBids) {
+        return offer(price, 1, bidder, keepAllBids);
+    }
+
+    /**
+    *   It offers a bid for a number of units at a price for every unit and returns true if it is kept.
+    *   A lot of a single unit takes it as a bid for the unit.
+    */
+    public boolean offer(int price, int quantity, AID bidder, boolean keepAllBids) {
+        if (price >= 0 && price >= initialPrice && quantity > 0) {
+            if (units != null) {
+                units.offer(price, quantity, bidder);
+            }
+            else {
+                topBids.offer(price, bidder);
+            }
+            if (keepAllBids) {
+                //add the bid in the priceList
+                bids.add(price);
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package secondbid;
+
+import java.util.Random;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The random prices of the bidders: a random number in a range, that the bidders, the bidder host
+ * and the benchmarks draw their bids and their raises with.
+ */
+final class RandomInteger {
+
+    private RandomInteger() {
+    }
+
+    // This function returns a random number between the [aStart,aEnd]
+    static int showRandomInteger(int aStart, int aEnd, Random aRandom){
+        // Check if the bounds are correct
+        if (aStart > aEnd) {
+          throw new IllegalArgumentException("Start value must not exceed End value!");
+        }
+
+        // Get the range, casting to long to avoid overflow problems
+        long range = (long)aEnd - (long)aStart + 1;
+        
+        // compute a fraction of the range, 0 <= frac < range
+        long fraction = (long)(range * aRandom.nextDouble());
+        int randomNum =  (int)(fraction + aStart);    
+        return randomNum;
+  }
+}
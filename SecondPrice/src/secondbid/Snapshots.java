@@ -0,0 +1,259 @@
+package secondbid;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The snapshots of the journal of the auctioneer: the items of the catalogue with their bids, up to a position of the journal.
+ * An auctioneer that starts again restores the last snapshot and reads only the records of the journal after it,
+ * so the time to start does not grow with the history of the auctions.
+ *
+ * The snapshots are taken by a thread of their own (argument "snapshot-interval", 60000 ms by default, 0 for none),
+ * that keeps its own copy of the state and brings it up to date from the records of the journal,
+ * so the auctioneer does not stop or copy anything for a snapshot.
+ * A snapshot is written to a new file, forced to the disk and then renamed over the previous one,
+ * so there is always one whole snapshot. The file is "SNAP", the version (1 byte), the position of the journal (8 bytes),
+ * the number of items (4 bytes), then for every item its name, its price, its units that are not sold,
+ * the number of bids and the bids, and at the end the CRC-32 of all that. A snapshot of version 1 has no units,
+ * so every item has one unit.
+ */
+class Snapshots implements BidJournal.Records {
+
+    public static final byte[] MAGIC = { 'S', 'N', 'A', 'P' };
+    public static final byte VERSION = 2;
+
+    private static final int[] NO_BIDS = new int[0];
+
+    /**
+    *   An item of the snapshot with its bids.
+    */
+    private static class Item {
+        int price;
+        int quantity;
+        int[] bids = NO_BIDS;
+        int size = 0;
+
+        Item(int price, int quantity) {
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    private final String path;
+
+    // The items in the order they were added to the catalogue
+    private final LinkedHashMap<String,Item> items = new LinkedHashMap<>();
+
+    // The position of the journal up to which the records are in the snapshot
+    private long position = 0;
+
+    private volatile boolean stopped = false;
+
+    private Thread thread = null;
+
+    /**
+    *   It creates an empty snapshot, at the start of the journal.
+    */
+    public Snapshots(String path) {
+        this.path = path;
+    }
+
+    /**
+    *   It reads the snapshot of a file, or returns an empty snapshot if there is none or it cannot be read.
+    */
+    public static Snapshots load(String path) {
+        Snapshots snapshots = new Snapshots(path);
+        if (!new File(path).exists()) {
+            return snapshots;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(path), 1 << 16), crc))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("It is not a snapshot");
+            }
+            byte version = in.readByte();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("It is not a snapshot of version " + VERSION);
+            }
+            snapshots.position = in.readLong();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                int price = in.readInt();
+                Item item = new Item(price, version == 1 ? 1 : in.readInt());
+                item.size = in.readInt();
+                item.bids = item.size == 0 ? NO_BIDS : new int[item.size];
+                for (int j = 0; j < item.size; j++) {
+                    item.bids[j] = in.readInt();
+                }
+                snapshots.items.put(name, item);
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("The checksum does not match");
+            }
+        }
+        catch (IOException e) {
+            AuctionLog.warn("The snapshot {} cannot be read: {}. The whole journal is read instead.", path, e);
+            return new Snapshots(path);
+        }
+        return snapshots;
+    }
+
+    /**
+    *   It returns the position of the journal up to which the records are in the snapshot.
+    */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+    *   It returns the number of items of the snapshot.
+    */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+    *   It gives the items of the snapshot and their bids to the auctioneer.
+    */
+    public void restore(BidJournal.Records records) {
+        for (Map.Entry<String,Item> e : items.entrySet()) {
+            Item item = e.getValue();
+            records.item(e.getKey(), item.price, item.quantity);
+            for (int j = 0; j < item.size; j++) {
+                records.bid(e.getKey(), item.bids[j], "");
+            }
+        }
+    }
+
+    /**
+    *   It starts the thread that takes a snapshot of the journal every intervalMillis ms.
+    */
+    public void start(final BidJournal journal, final long intervalMillis) {
+        thread = new Thread(new Runnable() {
+            public void run() {
+                while (!stopped) {
+                    LockSupport.parkNanos(intervalMillis * 1000000L);
+                    if (!stopped) {
+                        take(journal);
+                    }
+                }
+            }
+        }, "journal-snapshots");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+    *   It stops the thread of the snapshots and takes a last snapshot, before the journal is closed.
+    */
+    public void stop(BidJournal journal) {
+        stopped = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        take(journal);
+    }
+
+    /**
+    *   It brings the snapshot up to date with the records that are written in the journal, and writes it.
+    */
+    public synchronized void take(BidJournal journal) {
+        long upTo = journal.getWritten();
+        if (upTo <= position) {
+            return;
+        }
+        try {
+            position = journal.read(position, upTo, this);
+            write();
+        }
+        catch (IOException e) {
+            AuctionLog.warn("The snapshot {} cannot be written: {}", path, e.getMessage());
+        }
+    }
+
+    // Write the snapshot to a new file and put it in the place of the previous one
+    private void write() throws IOException {
+        File tmp = new File(path + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(position);
+            out.writeInt(items.size());
+            for (Map.Entry<String,Item> e : items.entrySet()) {
+                Item item = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(item.price);
+                out.writeInt(item.quantity);
+                out.writeInt(item.size);
+                for (int j = 0; j < item.size; j++) {
+                    out.writeInt(item.bids[j]);
+                }
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp.toPath(), new File(path).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The records of the journal, applied to the copy of the state like the auctioneer applies them
+
+    public void item(String name, int price, int quantity) {
+        Item item = items.get(name);
+        if (item != null) {
+            item.price = price;
+            item.quantity = quantity;
+        }
+        else {
+            items.put(name, new Item(price, quantity));
+        }
+    }
+
+    public void bid(String name, int price, String bidder) {
+        Item item = items.get(name);
+        if (item != null) {
+            if (item.size == item.bids.length) {
+                item.bids = Arrays.copyOf(item.bids, Math.max(8, item.size * 2));
+            }
+            item.bids[item.size++] = price;
+        }
+    }
+
+    public void sold(String name, int price, String winner) {
+        items.remove(name);
+    }
+
+    public void units(String name, int price, int quantity, String winner) {
+        Item item = items.get(name);
+        if (item != null) {
+            item.quantity -= quantity;
+            if (item.quantity <= 0) {
+                items.remove(name);
+            }
+        }
+    }
+
+    public void removed(String name) {
+        items.remove(name);
+    }
+}
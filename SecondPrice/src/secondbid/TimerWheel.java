@@ -0,0 +1,249 @@
+package secondbid;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * The timers of an agent on one clock: one behaviour that runs the deadlines and the clocks of all its lots.
+ * The time is cut in ticks (argument "timer-tick" of the agent, 10 ms by default) and the timers are kept
+ * in a hierarchical timer wheel of 4 levels of 64 slots: the first level holds the timers of the next 64 ticks,
+ * one slot per tick, and every level above holds 64 times longer slots. A slot of a level above is moved down
+ * when the clock reaches it, so a timer is moved at most 3 times.
+ * Scheduling and cancelling a timer is O(1), a tick costs the timers that are due in it,
+ * and the behaviour blocks until the next slot with timers, or forever if there is none.
+ * The timers run on the thread of the agent, so they can change the lots without locks.
+ */
+class TimerWheel extends CyclicBehaviour {
+
+    /**
+    *   A timer of the wheel. It is a node of the list of its slot.
+    */
+    static final class Timer {
+        private long due;
+        private Runnable task;
+        private Timer previous, next;
+
+        /**
+        *   It returns true if the timer has not run and has not been cancelled.
+        */
+        public boolean isPending() {
+            return task != null && next != null;
+        }
+    }
+
+    // The number of the slots of a level (2^BITS) and the number of levels
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // The farthest tick that fits in the wheel; a later timer waits in the last level and is placed again
+    private static final long SPAN = (1L << (BITS * LEVELS)) - 1;
+
+    // The length (ms) of a tick and the time (ms) of tick 0
+    private final long tickMillis;
+    private final long origin;
+
+    // The heads of the lists of the slots, and the list of the timers that run in this tick
+    private final Timer[][] wheel = new Timer[LEVELS][SLOTS];
+    private final Timer expired = head();
+
+    // The last tick that has run
+    private long current = 0;
+
+    // The tick when the behaviour wakes up next, so a timer that is due earlier wakes it up again
+    private long wakeTick = Long.MAX_VALUE;
+
+    // The number of pending timers
+    private int size = 0;
+
+    public TimerWheel(Agent agent, long tickMillis) {
+        super(agent);
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("A tick is at least 1 ms!");
+        }
+        this.tickMillis = tickMillis;
+        this.origin = System.currentTimeMillis();
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[level][i] = head();
+            }
+        }
+    }
+
+    /**
+    *   It runs a task after a delay (ms). The task does not run before the delay is over,
+    *   and runs at most one tick after it. It must be invoked by the thread of the agent.
+    */
+    public Timer schedule(long delayMillis, Runnable task) {
+        return scheduleAt(System.currentTimeMillis() + delayMillis, task);
+    }
+
+    /**
+    *   It runs a task at a time (ms, like System.currentTimeMillis()). It must be invoked by the thread of the agent.
+    */
+    public Timer scheduleAt(long timeMillis, Runnable task) {
+        Timer timer = new Timer();
+        timer.task = task;
+        // The first tick that starts at the time or after it, and never a tick that has already run
+        timer.due = Math.max(current + 1, (Math.max(0, timeMillis - origin) + tickMillis - 1) / tickMillis);
+        place(timer);
+        size++;
+        if (timer.due < wakeTick) {
+            // Wake the wheel up, it may be waiting for a later timer
+            wakeTick = timer.due;
+            restart();
+        }
+        return timer;
+    }
+
+    /**
+    *   It cancels a timer and returns true if it had not run yet.
+    */
+    public boolean cancel(Timer timer) {
+        if (timer == null || !timer.isPending()) {
+            return false;
+        }
+        unlink(timer);
+        timer.task = null;
+        size--;
+        return true;
+    }
+
+    /**
+    *   It returns the number of the pending timers.
+    */
+    public int size() {
+        return size;
+    }
+
+    public void action() {
+        advance(System.currentTimeMillis());
+        long next = nextTick();
+        if (next < 0) {
+            wakeTick = Long.MAX_VALUE;
+            block();
+        }
+        else {
+            wakeTick = next;
+            block(Math.max(1, origin + next * tickMillis - System.currentTimeMillis()));
+        }
+    }
+
+    /**
+    *   It runs the ticks up to a time (ms) and the timers that are due in them.
+    */
+    void advance(long nowMillis) {
+        long target = (nowMillis - origin) / tickMillis;
+        // A timer that is scheduled by a task of this tick does not wake the wheel up again
+        wakeTick = Long.MIN_VALUE;
+        while (current < target) {
+            if (size == 0) {
+                // Nothing is due, so the idle ticks are skipped
+                current = target;
+                break;
+            }
+            current++;
+            int index = (int) (current & MASK);
+            // Move down the slots of the levels above that start at this tick
+            for (int level = 1; level < LEVELS && index == 0; level++) {
+                index = (int) ((current >>> (BITS * level)) & MASK);
+                cascade(wheel[level][index]);
+            }
+            run(wheel[0][(int) (current & MASK)]);
+        }
+    }
+
+    // It runs the timers of a slot, and the timers that they cancel do not run
+    private void run(Timer slot) {
+        if (slot.next == slot) {
+            return;
+        }
+        moveAll(slot, expired);
+        while (expired.next != expired) {
+            Timer timer = expired.next;
+            Runnable task = timer.task;
+            unlink(timer);
+            timer.task = null;
+            size--;
+            task.run();
+        }
+    }
+
+    // It places the timers of a slot of a level above again, in the level of the time they have left
+    private void cascade(Timer slot) {
+        if (slot.next == slot) {
+            return;
+        }
+        moveAll(slot, expired);
+        while (expired.next != expired) {
+            Timer timer = expired.next;
+            unlink(timer);
+            place(timer);
+        }
+    }
+
+    // It puts a timer in the slot of its tick, in the lowest level that reaches it
+    private void place(Timer timer) {
+        long due = Math.min(timer.due, current + SPAN);
+        long delta = due - current;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        link(wheel[level][(int) ((due >>> (BITS * level)) & MASK)], timer);
+    }
+
+    // It returns the next tick when the wheel has work: a slot with timers or the start of a slot of a level above,
+    // or -1 if there are no timers
+    private long nextTick() {
+        if (size == 0) {
+            return -1;
+        }
+        for (long tick = current + 1; ; tick++) {
+            if ((tick & MASK) == 0 || wheel[0][(int) (tick & MASK)].next != wheel[0][(int) (tick & MASK)]) {
+                return tick;
+            }
+        }
+    }
+
+    private static Timer head() {
+        Timer head = new Timer();
+        head.previous = head;
+        head.next = head;
+        return head;
+    }
+
+    private static void link(Timer head, Timer timer) {
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+    }
+
+    private static void unlink(Timer timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    // It moves all the timers of a list to the end of another list
+    private static void moveAll(Timer from, Timer to) {
+        Timer first = from.next;
+        Timer last = from.previous;
+        first.previous = to.previous;
+        to.previous.next = first;
+        last.next = to;
+        to.previous = last;
+        from.next = from;
+        from.previous = from;
+    }
+}
@@ -0,0 +1,124 @@
+package secondbid;
+
+import jade.core.AID;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It keeps the k highest bids of a lot, with their bidders, while the bids arrive.
+ * The bids are kept sorted from the highest to the lowest price, and a bid that ties an earlier one is placed after it,
+ * so the first bidder wins a tie. With k = 2 the winner and the second price are known as soon as the last bid arrives.
+ */
+class TopBids {
+
+    // The prices of the highest bids, from the highest to the lowest
+    private final int[] prices;
+
+    // The bidders of the highest bids
+    private final AID[] bidders;
+
+    // The number of bids that are kept
+    private int size = 0;
+
+    // The number of bids that have been offered
+    private int offered = 0;
+
+    public TopBids(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one bid must be kept!");
+        }
+        prices = new int[k];
+        bidders = new AID[k];
+    }
+
+    /**
+    *   It offers a bid. It is kept only if it is one of the k highest bids.
+    */
+    public void offer(int price, AID bidder) {
+        offered++;
+        int k = prices.length;
+        if (size == k && price <= prices[k - 1]) {
+            return;
+        }
+        // Find the place of the bid, after all the bids with the same or a higher price
+        int i = (size < k) ? size : k - 1;
+        while (i > 0 && prices[i - 1] < price) {
+            prices[i] = prices[i - 1];
+            bidders[i] = bidders[i - 1];
+            i--;
+        }
+        prices[i] = price;
+        bidders[i] = bidder;
+        if (size < k) {
+            size++;
+        }
+    }
+
+    /**
+    *   It returns the number of bids that are kept.
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    *   It returns the number of bids that have been offered.
+    */
+    public int offered() {
+        return offered;
+    }
+
+    /**
+    *   It returns the price of the i-th highest bid.
+    */
+    public int price(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Bid " + i + " of " + size);
+        }
+        return prices[i];
+    }
+
+    /**
+    *   It returns the bidder of the i-th highest bid.
+    */
+    public AID bidder(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Bid " + i + " of " + size);
+        }
+        return bidders[i];
+    }
+
+    /**
+    *   It returns the bidder of the highest bid, or null if there are no bids.
+    */
+    public AID winner() {
+        return size > 0 ? bidders[0] : null;
+    }
+
+    /**
+    *   It returns the price that the winner pays: the price of the second highest bid,
+    *   or the price of the only bid if there is just one. Two equal top bids give that price.
+    */
+    public int secondPrice() {
+        if (size == 0) {
+            return 0;
+        }
+        return size > 1 ? prices[1] : prices[0];
+    }
+
+    /**
+    *   It forgets all the bids, so it can be used for the next lot.
+    */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            bidders[i] = null;
+        }
+        size = 0;
+        offered = 0;
+    }
+}
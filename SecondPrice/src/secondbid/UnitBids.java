@@ -0,0 +1,224 @@
+package secondbid;
+
+import jade.core.AID;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author Eirini Mitsopoulou
+ * @author Kyriaki-Nektaria Pantelidou
+ * @author Konstantina Papadopoulou
+ */
+
+/**
+ * It keeps the winning bids of a lot of many identical units, with their bidders, while the bids arrive.
+ * A bid asks for some units at a price for every unit. The bids that win are kept in a heap with the weakest one on top:
+ * the lowest price, and of two equal prices the later bid, so the first bidder wins a tie.
+ * A new bid pushes the weakest bids out for as long as the other bids still ask for all the units,
+ * so the heap holds only the bids that win and the cost of a bid is O(log k) for k winning bids.
+ * All the winners pay the same price: the highest price of a unit that does not win.
+ */
+class UnitBids {
+
+    // The number of units for sale
+    private final int units;
+
+    // The heap of the winning bids: their price for a unit, their units, their order of arrival and their bidders
+    private int[] prices = new int[16];
+    private int[] quantities = new int[16];
+    private long[] sequences = new long[16];
+    private AID[] bidders = new AID[16];
+
+    // The number of winning bids
+    private int size = 0;
+
+    // The units that the winning bids ask for, that may be more than the units for sale by a part of the weakest bid
+    private int total = 0;
+
+    // The highest price of a bid that was pushed out of the heap, or -1 if there is none
+    private int highestLosing = -1;
+
+    // The number of bids that have been offered
+    private long offered = 0;
+
+    public UnitBids(int units) {
+        if (units < 1) {
+            throw new IllegalArgumentException("At least one unit must be for sale!");
+        }
+        this.units = units;
+    }
+
+    /**
+    *   It offers a bid for a number of units at a price for every unit. A bid for more units than those for sale
+    *   asks for all of them. The bid is kept only while it is one of the bids that win.
+    */
+    public void offer(int price, int quantity, AID bidder) {
+        long sequence = offered++;
+        if (quantity <= 0) {
+            return;
+        }
+        if (quantity > units) {
+            quantity = units;
+        }
+        // All the units are taken by earlier bids with the same or a higher price
+        if (total >= units && price <= prices[0]) {
+            highestLosing = Math.max(highestLosing, price);
+            return;
+        }
+        push(price, quantity, sequence, bidder);
+        // Push the weakest bids out while the others ask for all the units
+        while (total - quantities[0] >= units) {
+            highestLosing = Math.max(highestLosing, prices[0]);
+            pop();
+        }
+    }
+
+    /**
+    *   It returns the number of winning bids.
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    *   It returns the number of bids that have been offered.
+    */
+    public long offered() {
+        return offered;
+    }
+
+    /**
+    *   It returns the number of units that are sold, that is the units for sale or fewer if the bids ask for fewer.
+    */
+    public int sold() {
+        return Math.min(total, units);
+    }
+
+    /**
+    *   It returns the price of a unit of the i-th winning bid. The winning bids are in no order.
+    */
+    public int price(int i) {
+        check(i);
+        return prices[i];
+    }
+
+    /**
+    *   It returns the bidder of the i-th winning bid.
+    */
+    public AID bidder(int i) {
+        check(i);
+        return bidders[i];
+    }
+
+    /**
+    *   It returns the units that the i-th winning bid gets. The weakest bid may get only a part of the units it asks for.
+    */
+    public int filled(int i) {
+        check(i);
+        if (i == 0 && total > units) {
+            return quantities[0] - (total - units);
+        }
+        return quantities[i];
+    }
+
+    /**
+    *   It returns the price that every winner pays for a unit: the highest price of a unit that does not win,
+    *   or the reserve price if every unit that is asked for wins.
+    */
+    public int clearingPrice(int reserve) {
+        if (total > units) {
+            // The units of the weakest bid that do not win
+            return Math.max(prices[0], reserve);
+        }
+        return Math.max(highestLosing, reserve);
+    }
+
+    /**
+    *   It forgets all the bids, so it can be used for the next lot of the same units.
+    */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            bidders[i] = null;
+        }
+        size = 0;
+        total = 0;
+        highestLosing = -1;
+        offered = 0;
+    }
+
+    private void check(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Bid " + i + " of " + size);
+        }
+    }
+
+    // It is true if the bid a is weaker than the bid b: a lower price, or the same price and a later bid
+    private boolean weaker(int a, int b) {
+        if (prices[a] != prices[b]) {
+            return prices[a] < prices[b];
+        }
+        return sequences[a] > sequences[b];
+    }
+
+    private void push(int price, int quantity, long sequence, AID bidder) {
+        if (size == prices.length) {
+            int capacity = 2 * size;
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            bidders = Arrays.copyOf(bidders, capacity);
+        }
+        int i = size++;
+        set(i, price, quantity, sequence, bidder);
+        total += quantity;
+        // Sift the bid up, above the stronger bids
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!weaker(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void pop() {
+        total -= quantities[0];
+        size--;
+        set(0, prices[size], quantities[size], sequences[size], bidders[size]);
+        bidders[size] = null;
+        // Sift the last bid down, below the weaker bids
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && weaker(child + 1, child)) {
+                child++;
+            }
+            if (!weaker(child, i)) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void set(int i, int price, int quantity, long sequence, AID bidder) {
+        prices[i] = price;
+        quantities[i] = quantity;
+        sequences[i] = sequence;
+        bidders[i] = bidder;
+    }
+
+    private void swap(int a, int b) {
+        int price = prices[a];
+        int quantity = quantities[a];
+        long sequence = sequences[a];
+        AID bidder = bidders[a];
+        set(a, prices[b], quantities[b], sequences[b], bidders[b]);
+        set(b, price, quantity, sequence, bidder);
+    }
+}